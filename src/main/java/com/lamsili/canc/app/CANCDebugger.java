@@ -14,112 +14,28 @@ import java.util.*;
 
 /**
  * CANCDebugger - Version simplifiée pour le débogage de l'algorithme CANC
+ *
+ * Seuls les caches anti-répétition de l'affichage console sont globaux ; l'activation du débogage et la
+ * configuration du modèle (méthodes d'évaluation, règles disjointes, affichage des prédictions) sont
+ * portées par le ModelContext de chaque learner. Les méthodes d'affichage ne testent pas l'activation :
+ * l'appelant les invoque sous ModelContext.isDebugEnabled() (celles qui reçoivent le learner le testent
+ * elles-mêmes). Les formats numériques, non thread-safe, sont propres à chaque thread.
  */
 public class CANCDebugger implements Serializable {
     // Ajouter un serialVersionUID pour la stabilité de la sérialisation
     private static final long serialVersionUID = 1L;
-    private static boolean debugEnabled = true;
-    private static final DecimalFormat df = new DecimalFormat("0.0000");
+    private static final ThreadLocal<DecimalFormat> df = ThreadLocal.withInitial(() -> new DecimalFormat("0.0000"));
     // Format pour l'affichage du gain d'information avec 4 décimales
-    private static final DecimalFormat dfGain = new DecimalFormat("0.0000");
+    private static final ThreadLocal<DecimalFormat> dfGain = ThreadLocal.withInitial(() -> new DecimalFormat("0.0000"));
     // Cache pour éviter l'affichage redondant des calculs de gain d'information
-    private static final Set<String> displayedInfoGains = new HashSet<>();
+    private static final Set<String> displayedInfoGains = java.util.concurrent.ConcurrentHashMap.newKeySet();
     // Cache pour éviter l'affichage redondant des calculs de support de valeurs
-    private static final Set<String> displayedValueSupports = new HashSet<>();
+    private static final Set<String> displayedValueSupports = java.util.concurrent.ConcurrentHashMap.newKeySet();
     // Pour réinitialiser l'affichage à chaque nouveau chunk ou nouvelle analyse
-    private static int currentChunkId = 0;
-
-    // Nouvelle variable pour suivre le mode actuel (chunks ou grace period)
-    private static boolean isChunksMode = true;
-
-    // Variable pour activer/désactiver la génération de règles disjointes
-    private static boolean useDisjointRules = false;
+    private static volatile int currentChunkId = 0;
 
     // Variable pour suivre si les détails de sélection ont déjà été affichés
-    private static boolean selectionDetailsDisplayed = false;
-
-    // Structure pour stocker les prédictions (instanceNumber, predictedClass, actualClass, isCorrect)
-    private static List<Map<String, Object>> predictionsTable = new ArrayList<>();
-
-    /**
-     * Méthode d'évaluation des attributs à utiliser dans toute l'application
-     * Changer cette variable pour basculer entre le gain d'information et le gain ratio
-     */
-    private static AttributeEvalMethod currentEvalMethod = AttributeEvalMethod.INFORMATION_GAIN;
-
-    /**
-     * Méthode d'évaluation des valeurs à utiliser dans toute l'application
-     * Changer cette variable pour basculer entre l'entropie et le support
-     */
-    private static ClosureOperator.ValueEvalMethod currentValueEvalMethod = ClosureOperator.ValueEvalMethod.ENTROPY;
-
-    // Variable pour stocker l'option showPredictions
-    private static boolean showPredictions = false;
-
-    /**
-     * Active ou désactive la génération de règles disjointes
-     * @param useDisjoint true pour activer, false pour désactiver
-     */
-    public static void setUseDisjointRules(boolean useDisjoint) {
-        useDisjointRules = useDisjoint;
-    }
-
-    /**
-     * Indique si la génération de règles disjointes est activée
-     * @return true si activée, false sinon
-     */
-    public static boolean isUseDisjointRules() {
-        return useDisjointRules;
-    }
-
-    /**
-     * Retourne la méthode d'évaluation des attributs configurée
-     */
-    public static AttributeEvalMethod getAttributeEvalMethod() {
-        return currentEvalMethod;
-    }
-
-    /**
-     * Retourne la méthode d'évaluation des valeurs configurée
-     */
-    public static ClosureOperator.ValueEvalMethod getValueEvalMethod() {
-        return currentValueEvalMethod;
-    }
-
-    /**
-     * Configure la méthode d'évaluation des attributs
-     * @param method Méthode à utiliser (INFORMATION_GAIN ou GAIN_RATIO)
-     */
-    public static void setAttributeEvalMethod(AttributeEvalMethod method) {
-        currentEvalMethod = method;
-        if (debugEnabled) {
-            System.out.println("Méthode d'évaluation d'attribut changée à: " + method);
-        }
-    }
-
-    /**
-     * Configure la méthode d'évaluation des valeurs
-     * @param method Méthode à utiliser (ENTROPY ou SUPPORT)
-     */
-    public static void setValueEvalMethod(ClosureOperator.ValueEvalMethod method) {
-        currentValueEvalMethod = method;
-        if (debugEnabled) {
-            System.out.println("Méthode d'évaluation de valeur changée à: " + method);
-        }
-    }
-    /**
-     * Active ou désactive le débogage
-     */
-    public static void setDebugEnabled(boolean enable) {
-        debugEnabled = enable;
-    }
-
-    /**
-     * Vérifie si le débogage est activé
-     */
-    public static boolean isDebugEnabled() {
-        return debugEnabled;
-    }
+    private static volatile boolean selectionDetailsDisplayed = false;
 
     /**
      * Réinitialise le cache d'information pour un nouveau chunk ou une nouvelle analyse
@@ -154,7 +70,6 @@ public class CANCDebugger implements Serializable {
      * Affiche les règles extraites
      */
     public static void printRules(String rules) {
-        if (!debugEnabled) return;
         System.out.println("\n=== RÈGLES EXTRAITES ===");
         System.out.println(rules);
     }
@@ -163,7 +78,6 @@ public class CANCDebugger implements Serializable {
      * Affiche une section de débogage avec un titre
      */
     public static void printDebugSection(String title, String message) {
-        if (!debugEnabled) return;
         System.out.println("\n=== " + title + " ===");
         System.out.println(message);
     }
@@ -178,9 +92,8 @@ public class CANCDebugger implements Serializable {
     /**
      * Affiche le calcul de la valeur pertinente pour un attribut
      */
-    public static void printRelevantValueCalculation(String attribute, Map<String, Double> valueScores, String selectedValue) {
-        if (!debugEnabled) return;
-
+    public static void printRelevantValueCalculation(String attribute, Map<String, Double> valueScores, String selectedValue,
+                                                     ClosureOperator.ValueEvalMethod valueEvalMethod) {
         // Créer une clé unique pour cet ensemble de supports d'attribut
         String cacheKey = currentChunkId + "_relevance_" + attribute;
 
@@ -194,7 +107,7 @@ public class CANCDebugger implements Serializable {
         displayedValueSupports.add(cacheKey);
 
         // Déterminer si on utilise Support ou Entropie pour l'affichage
-        boolean isSupport = currentValueEvalMethod == ClosureOperator.ValueEvalMethod.SUPPORT;
+        boolean isSupport = valueEvalMethod == ClosureOperator.ValueEvalMethod.SUPPORT;
         String metricName = isSupport ? "Support" : "Entropie";
 
         System.out.println("\n=== " + metricName + " des valeurs pour " + attribute + " (méthode: " +
@@ -214,11 +127,11 @@ public class CANCDebugger implements Serializable {
             String value = entry.getKey();
             Double score = entry.getValue();
             String marker = value.equals(selectedValue) ? " <- SÉLECTIONNÉE" : "";
-            System.out.println("  " + value + " : " + df.format(score) + marker);
+            System.out.println("  " + value + " : " + df.get().format(score) + marker);
         }
 
         System.out.println("Valeur sélectionnée: " + selectedValue + " (" +
-            metricName.toLowerCase() + ": " + df.format(valueScores.get(selectedValue)) + ")");
+            metricName.toLowerCase() + ": " + df.get().format(valueScores.get(selectedValue)) + ")");
     }
 
     /**
@@ -232,13 +145,11 @@ public class CANCDebugger implements Serializable {
      * Affiche un résumé des gains d'information pour tous les attributs
      */
     public static void printInfoGainSummary(Map<String, Double> attributeGains, String selectedAttr) {
-        if (!debugEnabled) return;
-
         if (selectedAttr != null && !selectedAttr.isEmpty()) {
             Double gain = attributeGains.get(selectedAttr);
             if (gain != null) {
                 // Créer une clé unique pour ce gain d'information
-                String cacheKey = currentChunkId + "_" + selectedAttr + "_" + dfGain.format(gain);
+                String cacheKey = currentChunkId + "_" + selectedAttr + "_" + dfGain.get().format(gain);
 
                 // Vérifier si on a déjà affiché cette information
                 if (!displayedInfoGains.contains(cacheKey)) {
@@ -246,7 +157,7 @@ public class CANCDebugger implements Serializable {
                     displayedInfoGains.add(cacheKey);
 
                     System.out.println("Attribut sélectionné : " + selectedAttr +
-                                      " (Gain d'information : " + dfGain.format(gain) + ")");
+                                      " (Gain d'information : " + dfGain.get().format(gain) + ")");
                 }
             }
         }
@@ -263,9 +174,8 @@ public class CANCDebugger implements Serializable {
      */
     public static void printValueDetails(NominalContext context, ClosureOperator closureOperator,
                                         String attribute, Variant currentVariant,
+                                        ClosureOperator.ValueEvalMethod valueEvalMethod,
                                         java.util.function.Function<String, String> getRelevantValueCallback) {
-        if (!debugEnabled) return;
-
         // Créer une clé unique pour éviter l'affichage redondant
         String cacheKey = currentChunkId + "_details_" + attribute;
         if (displayedValueSupports.contains(cacheKey)) {
@@ -303,7 +213,7 @@ public class CANCDebugger implements Serializable {
             Double score = valueScores.get(relevantValue);
             if (relevantValue != null && score != null) {
                 // Utiliser le nom correct de la métrique (support ou entropie)
-                String metricName = (currentValueEvalMethod == ClosureOperator.ValueEvalMethod.SUPPORT)
+                String metricName = (valueEvalMethod == ClosureOperator.ValueEvalMethod.SUPPORT)
                                     ? "Support" : "Entropie";
                 sb.append("Valeur pertinente sélectionnée pour ").append(attribute).append(" : ")
                   .append(relevantValue).append(" (").append(metricName).append(" : ")
@@ -321,7 +231,7 @@ public class CANCDebugger implements Serializable {
         if (currentVariant == Variant.CpNC_CORV || currentVariant == Variant.CaNC_CORV) {
             String relevantValue = getRelevantValueCallback.apply(attribute);
             if (relevantValue != null) {
-                printRelevantValueCalculation(attribute, valueScores, relevantValue);
+                printRelevantValueCalculation(attribute, valueScores, relevantValue, valueEvalMethod);
             }
         }
         */
@@ -333,7 +243,7 @@ public class CANCDebugger implements Serializable {
      * @param learner Instance du CANCLearnerMOA contenant le contexte et la variante actuelle
      */
     public static void printAttributesWithAllValuesViaCancDebugger(com.lamsili.canc.classifier.CANCLearnerMOA learner) {
-        if (!debugEnabled) return;
+        if (learner != null && !learner.getCancContext().isDebugEnabled()) return;
 
         if (learner == null) {
             System.out.println("Erreur: Impossible d'afficher les attributs et valeurs, learner est null");
@@ -397,7 +307,7 @@ public class CANCDebugger implements Serializable {
      * @return true si les détails ont été affichés, false sinon
      */
     public static boolean printSelectionDetails(com.lamsili.canc.classifier.CANCLearnerMOA learner) {
-        if (!debugEnabled) {
+        if (learner != null && !learner.getCancContext().isDebugEnabled()) {
             return false;
         }
 
@@ -422,15 +332,17 @@ public class CANCDebugger implements Serializable {
 
         // Créer un ClosureOperator pour les calculs
         ClosureOperator closureOperator = new ClosureOperator(context);
+        closureOperator.setDebugEnabled(true);
+        AttributeEvalMethod evalMethod = learner.getCancContext().getAttributeEvalMethod();
 
         // Traitement spécifique selon la variante et la méthode d'évaluation choisie
         switch (currentVariant) {
             case CpNC_COMV:
                 // Afficher le gain d'information ou le gain ratio selon la méthode choisie
-                if (currentEvalMethod == AttributeEvalMethod.INFORMATION_GAIN) {
+                if (evalMethod == AttributeEvalMethod.INFORMATION_GAIN) {
                     printDebugSection("Calcul du gain d'information",
                         formatAttributeScoresInfoWithLabel(learner.getAttributeScores(), "Gain d'information"));
-                } else if (currentEvalMethod == AttributeEvalMethod.GAIN_RATIO) {
+                } else if (evalMethod == AttributeEvalMethod.GAIN_RATIO) {
                     printDebugSection("Calcul du gain ratio",
                         formatAttributeScoresInfoWithLabel(learner.getAttributeScores(), "Gain ratio"));
                 }
@@ -444,10 +356,10 @@ public class CANCDebugger implements Serializable {
                 break;
             case CpNC_CORV:
                 // Afficher le gain d'information ou le gain ratio selon la méthode choisie
-                if (currentEvalMethod == AttributeEvalMethod.INFORMATION_GAIN) {
+                if (evalMethod == AttributeEvalMethod.INFORMATION_GAIN) {
                     printDebugSection("Calcul du gain d'information",
                         formatAttributeScoresInfoWithLabel(learner.getAttributeScores(), "Gain d'information"));
-                } else if (currentEvalMethod == AttributeEvalMethod.GAIN_RATIO) {
+                } else if (evalMethod == AttributeEvalMethod.GAIN_RATIO) {
                     printDebugSection("Calcul du gain ratio",
                         formatAttributeScoresInfoWithLabel(learner.getAttributeScores(), "Gain ratio"));
                 }
@@ -461,7 +373,8 @@ public class CANCDebugger implements Serializable {
                 // On affiche uniquement les valeurs pertinentes pour chaque attribut
                 for (String attribute : learner.getAttributeScores().keySet()) {
                     printValueDetails(context, closureOperator,
-                        attribute, currentVariant, learner::getRelevantValue);
+                        attribute, currentVariant, learner.getCancContext().getValueEvalMethod(),
+                        learner::getRelevantValue);
                 }
                 break;
         }
@@ -484,7 +397,7 @@ public class CANCDebugger implements Serializable {
 
         for (Map.Entry<String, Double> entry : sortedEntries) {
             sb.append(label).append(" pour l'attribut '").append(entry.getKey()).append("' : ")
-              .append(dfGain.format(entry.getValue())).append("\n");
+              .append(dfGain.get().format(entry.getValue())).append("\n");
         }
         return sb.toString();
     }
@@ -531,7 +444,7 @@ public class CANCDebugger implements Serializable {
                                                   Variant currentVariant,
                                                   int chunkId,
                                                   com.lamsili.canc.rules.RuleExtractor ruleExtractor) {
-        if (!debugEnabled || concepts == null || concepts.isEmpty()) {
+        if (concepts == null || concepts.isEmpty()) {
             return "";
         }
 
@@ -544,6 +457,9 @@ public class CANCDebugger implements Serializable {
             FormalConcept concept = concepts.get(i);
             conceptsDescription.append("Concept #").append(i + 1).append(" :\n");
             conceptsDescription.append("  Intent : ").append(concept.getIntent()).append("\n");
+            if (!concept.isExact()) {
+                conceptsDescription.append("  (Intention approximative : φ échantillonné)\n");
+            }
 
             // Afficher les extents en ajoutant 1 à chaque indice pour commencer à 1 au lieu de 0
             Set<Integer> extent = concept.getExtent();
@@ -555,6 +471,10 @@ public class CANCDebugger implements Serializable {
                 first = false;
             }
             extentDisplay.append("]");
+            if (concept.isExtentFree()) {
+                extentDisplay.append(" (non conservée : ").append(concept.getExtentSize())
+                        .append(" instances, effectifs ").append(Arrays.toString(concept.getClassCounts())).append(")");
+            }
             conceptsDescription.append("  Extent : ").append(extentDisplay).append("\n");
 
             // On détermine l'attribut pertinent et sa valeur selon la variante
@@ -581,7 +501,8 @@ public class CANCDebugger implements Serializable {
             // Générer les règles pour ce concept spécifique
             List<FormalConcept> singleConceptList = new ArrayList<>();
             singleConceptList.add(concept);
-            List<Rule> conceptRules = ruleExtractor.extractRules(singleConceptList, context, useDisjointRules);
+            List<Rule> conceptRules = ruleExtractor.extractRules(singleConceptList, context,
+                    ruleExtractor.getModelContext().isUseDisjointRules());
 
             // Si des règles sont générées pour ce concept, les afficher
             if (!conceptRules.isEmpty()) {
@@ -604,7 +525,7 @@ public class CANCDebugger implements Serializable {
      * @return Description formatée des règles
      */
     public static String generateRulesDescription(List<Rule> rules) {
-        if (!debugEnabled || rules == null || rules.isEmpty()) {
+        if (rules == null || rules.isEmpty()) {
             return "";
         }
 
@@ -627,7 +548,7 @@ public class CANCDebugger implements Serializable {
      * @param learner Instance du CANCLearnerMOA pour lequel afficher les détails
      */
     public static void handleSelectionDetails(com.lamsili.canc.classifier.CANCLearnerMOA learner) {
-        if (!debugEnabled) {
+        if (learner == null || !learner.getCancContext().isDebugEnabled()) {
             return;
         }
 
@@ -641,31 +562,15 @@ public class CANCDebugger implements Serializable {
         }
     }
 
-    /**
-     * Définit si les prédictions doivent être affichées
-     * @param show True pour afficher les prédictions, false sinon
-     */
-    public static void setShowPredictions(boolean show) {
-        showPredictions = show;
-    }
-
-    /**
-     * Vérifie si l'affichage des prédictions est activé
-     * @return True si l'affichage des prédictions est activé
-     */
-    public static boolean isShowPredictions() {
-        return showPredictions;
-    }
-
     /**
      * Affiche les résultats de prédiction sous forme de tableau
-     * Ne s'affiche que si showPredictions est activé
+     * À n'appeler que si l'affichage des prédictions est activé pour le modèle
      *
      * @param results Liste des résultats de prédiction
      * @param currentVariant Variante actuelle de l'algorithme
      */
     public static void displayPredictionResults(List<?> results, Variant currentVariant) {
-        if (!showPredictions || results == null || results.isEmpty()) {
+        if (results == null || results.isEmpty()) {
             return;
         }
 
@@ -844,8 +749,6 @@ public class CANCDebugger implements Serializable {
      * @param context Le contexte nominal contenant les instances
      */
     public static void printProcessedInstances(NominalContext context) {
-        if (!debugEnabled) return;
-
         if (context == null || context.getNumInstances() == 0) {
             System.out.println("Aucune instance traitée");
             return;
@@ -907,7 +810,7 @@ public class CANCDebugger implements Serializable {
                                                                int chunkId,
                                                                com.lamsili.canc.rules.RuleExtractor ruleExtractor,
                                                                int offset) {
-        if (!debugEnabled || concepts == null || concepts.isEmpty()) return "";
+        if (concepts == null || concepts.isEmpty()) return "";
         StringBuilder sb = new StringBuilder();
         sb.append("--- NOUVEAUX CONCEPTS ").append(") à l'instance ").append(chunkId).append(" ---\n");
         for (int i = 0; i < concepts.size(); i++) {
@@ -924,6 +827,10 @@ public class CANCDebugger implements Serializable {
                 first = false;
             }
             extentDisplay.append("]");
+            if (concept.isExtentFree()) {
+                extentDisplay.append(" (non conservée : ").append(concept.getExtentSize())
+                        .append(" instances, effectifs ").append(Arrays.toString(concept.getClassCounts())).append(")");
+            }
             sb.append("  Extent : ").append(extentDisplay).append("\n");
             if (currentVariant == Variant.CpNC_COMV || currentVariant == Variant.CpNC_CORV) {
                 sb.append("  Attribut pertinent : ").append(pertinentAttribute).append("\n");
@@ -3,11 +3,26 @@ package com.lamsili.canc.classifier;
 import com.lamsili.canc.fca.closure.ClosureOperator;
 import com.lamsili.canc.fca.closure.ClosureOperator.AttributeEvalMethod;
 import com.lamsili.canc.fca.closure.ClosureOperator.ValueEvalMethod;
+import com.lamsili.canc.fca.closure.FCbOEnumerator;
+import com.lamsili.canc.fca.concept.ConceptArchive;
+import com.lamsili.canc.fca.concept.ConceptIndex;
+import com.lamsili.canc.fca.concept.ConceptRegistry;
+import com.lamsili.canc.fca.concept.ExtentFingerprint;
+import com.lamsili.canc.fca.concept.ExtentFingerprintSet;
 import com.lamsili.canc.fca.concept.FormalConcept;
+import com.lamsili.canc.fca.concept.IncrementalLattice;
+import com.lamsili.canc.fca.concept.SupportFilter;
 import com.lamsili.canc.fca.context.NominalContext;
+import com.lamsili.canc.rules.ConceptHasseDiagram;
+import com.lamsili.canc.rules.EvictionPolicy;
+import com.lamsili.canc.rules.ModelContext;
+import com.lamsili.canc.rules.UsageTracker;
 import com.lamsili.canc.rules.Rule;
 import com.lamsili.canc.rules.RuleExtractor;
+import com.lamsili.canc.rules.RuleIndex;
+import com.lamsili.canc.rules.RuleStore;
 import com.lamsili.canc.varriants.NCACoupleSelector;
+import com.lamsili.canc.varriants.PertinentAttributeCache;
 import com.lamsili.canc.varriants.Variant;
 import com.lamsili.canc.app.CANCDebugger;
 
@@ -18,8 +33,11 @@ import moa.core.StringUtils;
 import moa.core.Utils;
 import com.github.javacliparser.IntOption;
 import com.github.javacliparser.FlagOption;
+import com.github.javacliparser.FloatOption;
 import com.github.javacliparser.MultiChoiceOption;
+import com.github.javacliparser.StringOption;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 import com.yahoo.labs.samoa.instances.InstancesHeader;
 
 import java.util.*;
@@ -41,12 +59,13 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
     public MultiChoiceOption variantOption = new MultiChoiceOption("variant", 'v',
             "Variante de l'algorithme NCA à utiliser",
-            new String[]{"CpNC_COMV", "CpNC_CORV", "CaNC_COMV", "CaNC_CORV"},
+            new String[]{"CpNC_COMV", "CpNC_CORV", "CaNC_COMV", "CaNC_CORV", "CfNC_FCbO"},
             new String[]{
                 "CpNC_COMV: attribut pertinent, fermeture multi-valeurs",
                 "CpNC_CORV: attribut pertinent, fermeture valeur pertinente",
                 "CaNC_COMV: tous les attributs, fermeture multi-valeurs",
-                "CaNC_CORV: tous les attributs, fermeture valeurs pertinentes"
+                "CaNC_CORV: tous les attributs, fermeture valeurs pertinentes",
+                "CfNC_FCbO: treillis complet énuméré par FCbO parallèle"
             },
             0);
 
@@ -82,14 +101,141 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     public IntOption fixedSampleSizeOption = new IntOption("fixedSampleSize", 's',
             "Taille fixe d'échantillon après rejet (0 = aléatoire)", 50, 0, Integer.MAX_VALUE);
 
+    // φ approximatif : échantillonnage des grandes extensions avant vérification des candidats
+    public IntOption approxPhiMinExtentOption = new IntOption("approxPhiMinExtent", 'x',
+            "Taille d'extension à partir de laquelle φ est calculé sur un échantillon (0 = désactivé)", 0, 0, Integer.MAX_VALUE);
+
+    public FloatOption approxPhiToleranceOption = new FloatOption("approxPhiTolerance", 't',
+            "Fraction ε de l'extension qu'un couple peut contredire sans être détecté par l'échantillon", 0.01, 1e-6, 1.0);
+
+    public FloatOption approxPhiErrorProbabilityOption = new FloatOption("approxPhiErrorProbability", 'q',
+            "Probabilité δ qu'un couple contredit par plus de ε survive à l'échantillon", 0.01, 1e-12, 1.0);
+
+    public FlagOption approxPhiAcceptOption = new FlagOption("approxPhiAccept", 'y',
+            "Accepter le φ échantillonné sans vérification exacte (concepts marqués approximatifs)");
+
+    // Cache de l'attribut pertinent entre reconstructions, contrôlé par une tolérance heuristique
+    public FloatOption pertinentAttributeDeltaOption = new FloatOption("pertinentAttributeDelta", 'h',
+            "Paramètre δ de la tolérance (forme de Hoeffding, heuristique) pour réutiliser l'attribut pertinent sans reclassement (0 = toujours reclasser)",
+            0.0, 0.0, 1.0);
+
+    // Élagage des attributs constants ou quasi constants
+    public FlagOption pruneDegenerateAttributesOption = new FlagOption("pruneDegenerateAttributes", 'c',
+            "Exclure des intentions, des règles et des scores les attributs constants ou quasi constants");
+
+    public FloatOption degenerateThresholdOption = new FloatOption("degenerateThreshold", 'z',
+            "Fraction des instances couverte par la valeur dominante à partir de laquelle un attribut est dégénéré (1.0 = constant)",
+            1.0, 0.5, 1.0);
+
+    // Sélection en ligne des attributs informatifs
+    public IntOption featureSelectionTopKOption = new IntOption("featureSelectionTopK", 'k',
+            "Nombre d'attributs les plus informatifs conservés pour les fermetures et les règles (0 = tous)", 0, 0, Integer.MAX_VALUE);
+
+    public FloatOption featureSelectionMinGainOption = new FloatOption("featureSelectionMinGain", 'm',
+            "Gain d'information minimal pour qu'un attribut reste actif (0 = pas de seuil)", 0.0, 0.0, Double.MAX_VALUE);
+
+    public IntOption featureSelectionPeriodOption = new IntOption("featureSelectionPeriod", 'f',
+            "Nombre d'instances entre deux réévaluations de la sélection d'attributs", 500, 1, Integer.MAX_VALUE);
+
+    public FlagOption incrementalLatticeOption = new FlagOption("incrementalLattice", 'i',
+            "Insérer les instances rejetées dans la structure de concepts (Godin) au lieu d'échantillonner et reconstruire");
+
+    // Génération bornée par le support (treillis iceberg / top-k)
+    public FloatOption minConceptSupportOption = new FloatOption("minConceptSupport", 'u',
+            "Support minimal (fraction du contexte) d'un concept généré (0 = pas de seuil)", 0.0, 0.0, 1.0);
+
+    public IntOption conceptTopKOption = new IntOption("conceptTopK", 'n',
+            "Nombre maximal de concepts conservés par construction, les plus supportés d'abord (0 = tous)", 0, 0, Integer.MAX_VALUE);
+
+    public FlagOption latticePredictionOption = new FlagOption("latticePrediction", 'j',
+            "Prédire en descendant le diagramme de Hasse des concepts (vote des concepts satisfaits les plus spécifiques)");
+
+    public FlagOption deduplicateConceptsOption = new FlagOption("deduplicateConcepts", 'D',
+            "Fusionner un concept redécouvert lors d'une reconstruction avec le concept existant de même intention");
+
+    public FlagOption mergeDuplicateRulesOption = new FlagOption("mergeDuplicateRules", 'R',
+            "Fusionner une règle extraite dans la règle existante de même prémisse (classe arbitrée par la couverture)");
+
+    public FlagOption extentFreeConceptsOption = new FlagOption("extentFreeConcepts", 'F',
+            "Ne conserver pour chaque concept que ses effectifs par classe, sa taille et son poids (mémoire O(classes) par concept)");
+
+    public FlagOption shareExtentsOption = new FlagOption("shareExtents", 'S',
+            "Stocker les extensions en blocs de bitmap partagés entre concepts (copie sur écriture)");
+
+    // Historique à deux tiers : concepts chauds en mémoire, concepts froids dans une archive sur disque
+    public IntOption conceptIdleDemotionOption = new IntOption("conceptIdleDemotion", 'H',
+            "Nombre d'instances sans correspondance après lequel un concept est rétrogradé dans l'archive sur disque (0 = désactivé)",
+            0, 0, Integer.MAX_VALUE);
+
+    public StringOption conceptArchiveOption = new StringOption("conceptArchive", 'A',
+            "Fichier d'archive des concepts rétrogradés (vide = fichier temporaire)", "");
+
+    // Budget de concepts et politique d'éviction
+    public IntOption maxConceptsOption = new IntOption("maxConcepts", 'M',
+            "Nombre maximal de concepts conservés dans le modèle, leurs règles comprises (0 = illimité)", 0, 0, Integer.MAX_VALUE);
+
+    public MultiChoiceOption evictionPolicyOption = new MultiChoiceOption("evictionPolicy", 'E',
+            "Politique d'éviction des concepts au-delà du budget",
+            new String[]{"LRU", "LFU", "LOWEST_WEIGHT", "TTL", "LEAST_CORRECT"},
+            new String[]{
+                "LRU: évince les concepts dont le dernier vote est le plus ancien",
+                "LFU: évince les concepts qui ont le moins voté",
+                "LOWEST_WEIGHT: évince les concepts dont les règles pèsent le moins",
+                "TTL: évince aussi les concepts sans vote depuis conceptTTL instances",
+                "LEAST_CORRECT: évince les concepts dont les règles ont le moins contribué aux votes corrects"
+            },
+            0);
+
+    public IntOption conceptTTLOption = new IntOption("conceptTTL", 'T',
+            "Nombre d'instances sans vote au-delà duquel un concept expire (politique TTL)", 5000, 1, Integer.MAX_VALUE);
+
+    public IntOption ruleMetricsParallelismOption = new IntOption("ruleMetricsParallelism", 'G',
+            "Nombre de workers fork-join pour le calcul des métriques des règles (0 = pool commun, 1 = séquentiel)", 1, 0, Integer.MAX_VALUE);
+
+    // Compaction périodique des règles
+    public IntOption ruleCompactionPeriodOption = new IntOption("ruleCompactionPeriod", 'P',
+            "Nombre d'instances entre deux compactions des règles (0 = désactivée)", 0, 0, Integer.MAX_VALUE);
+
+    public FloatOption ruleWeightFloorOption = new FloatOption("ruleWeightFloor", 'W',
+            "Poids (support × confiance) en dessous duquel une règle est retirée lors de la compaction", 0.0, 0.0, 1.0);
+
+    public FlagOption pruneSubsumedRulesOption = new FlagOption("pruneSubsumedRules", 'U',
+            "Retirer lors de la compaction les règles subsumées par une règle plus générale de même classe et de confiance au moins égale");
+
+    // Énumération du treillis complet (variante CfNC_FCbO)
+    public IntOption latticeMaxConceptsOption = new IntOption("latticeMaxConcepts", 'l',
+            "Nombre maximal de concepts énumérés par FCbO à chaque reconstruction (0 = illimité)", 1000, 0, Integer.MAX_VALUE);
+
+    public IntOption latticeTimeLimitOption = new IntOption("latticeTimeLimit", 'o',
+            "Durée maximale de l'énumération FCbO en millisecondes (0 = illimitée)", 2000, 0, Integer.MAX_VALUE);
+
+    public IntOption latticeParallelismOption = new IntOption("latticeParallelism", 'w',
+            "Nombre de workers fork-join pour FCbO (0 = pool commun, 1 = séquentiel)", 0, 0, Integer.MAX_VALUE);
+
     // Variables de l'algorithme
     private NominalContext context;
+    private int lastFeatureSelectionAt = -1; // instancesSeen lors de la dernière sélection d'attributs
     private ClosureOperator closureOperator;
     private NCACoupleSelector coupleSelector;
     private List<Rule> rules;
     private RuleExtractor ruleExtractor;
+    private ModelContext cancContext; // Configuration propre à ce modèle, partagée avec les règles, l'extracteur et le sélecteur
     private Variant currentVariant;
     private String cachedPertinentAttribute; // Stockage de l'attribut pertinent pour éviter les recalculs
+    private PertinentAttributeCache pertinentAttributeCache; // Dernier classement par contexte et écart entre les deux premiers
+    private transient NominalContext rankingWindow; // Fenêtre complète pendant la construction sur un échantillon (option -h)
+    private IncrementalLattice incrementalLattice; // Structure de concepts mise à jour instance par instance (option -i)
+    private transient SupportFilter supportFilter; // Borne iceberg / top-k de la construction en cours
+    private transient ConceptHasseDiagram hasseDiagram; // Relation de couverture des prémisses évaluées (option -j)
+    private transient long rulesModCount; // Modifications de la liste des règles ou de leurs prémisses évaluées
+    private transient long hasseDiagramModCount; // Valeur de rulesModCount que le diagramme reflète
+    private transient RuleIndex ruleIndex; // Trie de discrimination des prémisses, tenu à jour avec la liste des règles
+    // Dernière recherche dans le trie : en test-then-train, la prédiction, la couverture et la
+    // prédiction interne de l'entraînement portent sur la même instance
+    private transient Instance lookupInstance;
+    private transient long lookupModCount;
+    private transient List<Rule> lookupRules;
+    private transient double[] voteBuffer; // Votes des prédictions internes (ajustement des poids), réutilisés d'une instance à l'autre
     // Nouveau: mode restreint après rejet
     private boolean restrictPertinentAttributeToRejectedValue = false;
     private Instance lastRejectedInstance = null;
@@ -113,6 +259,30 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     // Liste pour conserver tous les concepts générés entre les reconstructions du modèle
     private List<FormalConcept> allConcepts = new ArrayList<>();
 
+    // Index inversé (attribut, valeur) -> concepts de allConcepts, maintenu à chaque ajout
+    private ConceptIndex conceptIndex; // Créé avec le dictionnaire des couples du modèle (resetLearningImpl)
+
+    // Règles extraites de chaque concept (identité), pour retirer ou mettre à jour les règles d'un concept
+    private IdentityHashMap<FormalConcept, List<Rule>> rulesByConcept = new IdentityHashMap<>();
+
+    // Registre canonique des concepts par intention (option -D)
+    private ConceptRegistry conceptRegistry;
+    // Magasin des règles par prémisse (option -R)
+    private RuleStore ruleStore;
+    // Vrai pendant une reconstruction sur échantillon : la fusion attend le remappage des extensions
+    private transient boolean deferConceptMerge = false;
+
+    // Tier froid de l'historique (option -H) et dernière correspondance de chaque concept chaud
+    private ConceptArchive conceptArchive;
+    private IdentityHashMap<FormalConcept, Integer> lastMatched = new IdentityHashMap<>();
+    private int lastRuleCompaction; // instancesSeen lors de la dernière compaction des règles (option -P)
+    private int lastDemotionCheck = 0;
+    private int lastExpiryCheck = 0;
+
+    // Utilisation des concepts, pour l'éviction (options -M / -E)
+    private UsageTracker usageTracker;
+    private EvictionPolicy evictionPolicy;
+
     // Variable pour suivre le nombre de prédictions effectuées (pour l'affichage)
     private int predictionCounter = 0;
 
@@ -133,13 +303,17 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
     @Override
     public void resetLearningImpl() {
-        // Configurer CANCDebugger avec les options de MOA
-        com.lamsili.canc.app.CANCDebugger.setDebugEnabled(debugOption.isSet());
-        com.lamsili.canc.app.CANCDebugger.setUseDisjointRules(useDisjointRulesOption.isSet());
-        com.lamsili.canc.app.CANCDebugger.setShowPredictions(showPredictionsOption.isSet());
+        // Configuration du modèle (l'ordre des attributs défini par setModelContext est conservé)
+        if (this.cancContext == null) {
+            this.cancContext = new ModelContext();
+        }
+        // Le débogage est propre à ce modèle : plusieurs learners d'une même JVM ne se le disputent pas
+        this.cancContext.setDebugEnabled(debugOption.isSet());
+        this.cancContext.setUseDisjointRules(useDisjointRulesOption.isSet());
+        this.cancContext.setShowPredictions(showPredictionsOption.isSet());
 
         // Afficher la date au début du débogage (une seule fois au lancement du modèle)
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (cancContext.isDebugEnabled()) {
             java.util.Date currentDate = new java.util.Date();
             java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
             String dateStr = dateFormat.format(currentDate);
@@ -149,22 +323,30 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
         // Configurer la méthode d'évaluation des attributs
         if (attributeEvalOption.getChosenIndex() == 0) {
-            com.lamsili.canc.app.CANCDebugger.setAttributeEvalMethod(AttributeEvalMethod.INFORMATION_GAIN);
+            this.cancContext.setAttributeEvalMethod(AttributeEvalMethod.INFORMATION_GAIN);
         } else {
-            com.lamsili.canc.app.CANCDebugger.setAttributeEvalMethod(AttributeEvalMethod.GAIN_RATIO);
+            this.cancContext.setAttributeEvalMethod(AttributeEvalMethod.GAIN_RATIO);
         }
 
         // Configurer la méthode d'évaluation des valeurs
         if (valueEvalOption.getChosenIndex() == 0) {
-            com.lamsili.canc.app.CANCDebugger.setValueEvalMethod(ValueEvalMethod.ENTROPY);
+            this.cancContext.setValueEvalMethod(ValueEvalMethod.ENTROPY);
         } else {
-            com.lamsili.canc.app.CANCDebugger.setValueEvalMethod(ValueEvalMethod.SUPPORT);
+            this.cancContext.setValueEvalMethod(ValueEvalMethod.SUPPORT);
+        }
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("Méthode d'évaluation d'attribut changée à: " + cancContext.getAttributeEvalMethod());
+            System.out.println("Méthode d'évaluation de valeur changée à: " + cancContext.getValueEvalMethod());
         }
 
         // Initialiser le contexte
         this.context = new NominalContext();
+        this.context.setDegenerateAttributePruning(pruneDegenerateAttributesOption.isSet(),
+                degenerateThresholdOption.getValue());
 
         this.instancesSeen = 0;
+        this.lastFeatureSelectionAt = -1;
         this.lastModelBuildSize = 0;
         this.conceptsGenerated = 0;
         this.rulesGenerated = 0;
@@ -173,7 +355,47 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             this.rules = new ArrayList<>();
         }
         // Le reste reste inchangé
-        this.ruleExtractor = new RuleExtractor();
+        if (this.ruleExtractor != null) {
+            this.ruleExtractor.shutdownMetricsPool();
+        }
+        this.ruleExtractor = new RuleExtractor(cancContext);
+        this.ruleExtractor.setMetricsParallelism(ruleMetricsParallelismOption.getValue());
+        this.ruleIndex = null;
+        this.lookupInstance = null;
+        this.lookupRules = null;
+        this.hasseDiagram = null;
+        this.pertinentAttributeCache = pertinentAttributeDeltaOption.getValue() > 0.0
+                ? new PertinentAttributeCache(pertinentAttributeDeltaOption.getValue()) : null;
+        this.incrementalLattice = incrementalLatticeOption.isSet() ? new IncrementalLattice(cancContext.getIntentCodec()) : null;
+        this.conceptRegistry = deduplicateConceptsOption.isSet() ? new ConceptRegistry() : null;
+        this.ruleStore = mergeDuplicateRulesOption.isSet() ? new RuleStore() : null;
+        this.evictionPolicy = EvictionPolicy.values()[evictionPolicyOption.getChosenIndex()];
+        this.usageTracker = maxConceptsOption.getValue() > 0 || evictionPolicy.expires() ? new UsageTracker() : null;
+        // L'archive précédente est fermée : les adresses froides qui y pointent sont oubliées
+        if (this.conceptArchive != null) {
+            try {
+                this.conceptArchive.close();
+            } catch (java.io.IOException e) {
+                System.err.println("Erreur à la fermeture de l'archive des concepts : " + e.getMessage());
+            }
+        }
+        if (this.conceptIndex == null) {
+            this.conceptIndex = new ConceptIndex(cancContext.getIntentCodec());
+        }
+        this.conceptIndex.clearCold();
+        this.conceptArchive = null;
+        this.lastDemotionCheck = 0;
+        this.lastExpiryCheck = 0;
+        this.lastRuleCompaction = 0;
+        if (conceptIdleDemotionOption.getValue() > 0) {
+            try {
+                String path = conceptArchiveOption.getValue();
+                this.conceptArchive = path.isEmpty() ? ConceptArchive.temporary(cancContext.getIntentCodec())
+                        : new ConceptArchive(path, cancContext.getIntentCodec());
+            } catch (java.io.IOException e) {
+                System.err.println("Archive des concepts indisponible, rétrogradation désactivée : " + e.getMessage());
+            }
+        }
 
         // Déterminer la variante à utiliser
         switch (variantOption.getChosenIndex()) {
@@ -189,6 +411,9 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             case 3:
                 this.currentVariant = Variant.CaNC_CORV;
                 break;
+            case 4:
+                this.currentVariant = Variant.CfNC_FCbO;
+                break;
             default:
                 this.currentVariant = Variant.CpNC_COMV;
         }
@@ -199,7 +424,10 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         super.setModelContext(context);
 
         // Définir l'ordre des attributs pour l'affichage des règles
-        Rule.setAttributeOrder(context);
+        if (this.cancContext == null) {
+            this.cancContext = new ModelContext();
+        }
+        this.cancContext.setAttributeOrder(context);
 
         // Initialisation si nécessaire
         if (this.context == null) {
@@ -212,8 +440,14 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         // Incrémenter le compteur d'instances
         instancesSeen++;
 
-        // Ajouter l'instance directement au contexte
-        context.addInstance(inst);
+        // Ajouter l'instance directement au contexte ; la couverture des règles suit l'ajout et le fenêtrage
+        Instance evicted = context.addInstance(inst);
+        ruleIndex().contextChanged(context, inst, applicableRulesOf(inst), evicted);
+
+        // Réévaluer périodiquement le sous-ensemble d'attributs actifs (une fois le modèle prêt à être construit)
+        if (firstModelBuilt || instancesSeen >= gracePeriodOption.getValue()) {
+            updateAttributeSelection();
+        }
 
         // Si nous sommes avant ou à la période de grâce
         if (instancesSeen <= gracePeriodOption.getValue()) {
@@ -226,7 +460,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             }
 
             // Affichage pour suivi des poids pendant la période de grâce
-            if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            if (cancContext.isDebugEnabled()) {
                 System.out.println("[POIDS] Instance #" + instancesSeen + " (période de grâce) - Poids fixe: " + fixedWeight);
             }
         } else {
@@ -241,19 +475,19 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             // La normalisation globale sera effectuée plus tard dans buildModel
 
             // Affichage pour suivi des poids après la période de grâce
-            if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            if (cancContext.isDebugEnabled()) {
                 System.out.println("[POIDS] Nouvelle instance #" + instancesSeen + " - Poids initial: 1.0");
             }
         }
 
         // Initialiser le closure operator si nécessaire
         if (closureOperator == null) {
-            closureOperator = new ClosureOperator(context);
+            closureOperator = newClosureOperator(context);
         }
 
         // Initialiser le couple selector si nécessaire
         if (coupleSelector == null) {
-            coupleSelector = new NCACoupleSelector(context);
+            coupleSelector = new NCACoupleSelector(context, cancContext);
         }
 
         // Vérifier si on doit reconstruire le modèle en fonction de la période de grâce
@@ -263,6 +497,9 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 // On a atteint la période de grâce, construire le premier modèle
                 buildModel();
                 firstModelBuilt = true;  // Marquer que le premier modèle a été construit
+                if (incrementalLattice != null) {
+                    incrementalLattice.reset(allConcepts);
+                }
             }
             // Sinon, ne rien faire pour toutes les instances avant la période de grâce
         } else {
@@ -271,6 +508,12 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             
             // On sauvegarde l'instance actuelle pour la vérification
             Instance currentInstance = inst;
+
+            // Les concepts froids satisfaits par l'instance reviennent en mémoire avant sa prédiction
+            // interne et la mise à jour des concepts ; la prédiction (étape de test) ne lit que le tier chaud
+            if (conceptArchive != null && conceptIndex.coldSize() > 0) {
+                promoteMatchingConcepts(currentInstance);
+            }
             
             // Obtenir la classe réelle de l'instance
             String actualClass = currentInstance.classAttribute().value((int) currentInstance.classValue());
@@ -287,7 +530,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             
             // S'assurer que nous avons au moins un résultat de prédiction
             if (predictionResults.isEmpty()) {
-                if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                if (cancContext.isDebugEnabled()) {
                     System.out.println("[ALERTE] Liste de prédictions vide pour l'instance #" + instancesSeen + " - Réexécution de la prédiction");
                 }
             }
@@ -299,9 +542,13 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             // Vérifier d'abord si c'est un cas de rejet (aucune règle applicable)
             boolean isRejected = applicableRules.isEmpty();
 
+            if (usageTracker != null) {
+                usageTracker.recordVotes(applicableRules, actualClass, instancesSeen);
+            }
+
             if (isRejected) {
                 // Cas où l'instance est rejetée (aucune règle applicable)
-                if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                if (cancContext.isDebugEnabled()) {
                     System.out.println("\u001B[36m [INSTANCE REJETÉE] Instance #" + instancesSeen + " rejetée - Aucune règle applicable - Échantillonnage et reconstruction du modèle CANC\u001B[0m");
                 }
 
@@ -314,28 +561,33 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 int currentInstanceIndex = context.getNumInstances() - 1;
                 context.setInstanceWeight(currentInstanceIndex, 1.0);
 
-                if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                if (cancContext.isDebugEnabled()) {
                     System.out.println("\u001B[36m [POIDS REJET] Poids de l'instance rejetée #" + instancesSeen + " fixé à 1.0 \u001B[0m");
                 }
 
-                // Échantillonnage avant la reconstruction du modèle
-                sampleInstancesAndBuildModel();
+                if (incrementalLattice != null) {
+                    // Insertion incrémentale : seuls les concepts créés ou étendus sont traités
+                    insertIntoLattice(currentInstance, currentInstanceIndex);
+                } else {
+                    // Échantillonnage avant la reconstruction du modèle
+                    sampleInstancesAndBuildModel();
+                }
             } else {
                 // Cas où des règles sont applicables (prédiction correcte ou incorrecte)
                 if (isCorrectPrediction) {
-                    if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                    if (cancContext.isDebugEnabled()) {
                         System.out.println("\u001B[35m[AJOUT INSTANCE] Instance #" + instancesSeen + " correctement classifiée - Optimisation\u001B[0m");
                     }
                     // Réduction du poids de 50% (passer de 1.0 à 0.5) pour une instance bien classée
                     int currentInstanceIndex = context.getNumInstances() - 1;
                     double oldW = context.getInstanceWeight(currentInstanceIndex);
                     context.setInstanceWeight(currentInstanceIndex, oldW * 0.5);
-                    if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                    if (cancContext.isDebugEnabled()) {
                         System.out.println("[POIDS] Instance #" + instancesSeen + " bien classifiée - poids réduit de " + oldW + " à " + (oldW * 0.5));
                     }
                 } else {
                     // Cas où l'instance est mal classifiée mais des règles s'appliquent
-                    if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                    if (cancContext.isDebugEnabled()) {
                         System.out.println("\u001B[33m [INSTANCE mal classifiée] Instance #" + instancesSeen + " mal classifiée - " + applicableRules.size() + " règles applicables mais prédiction incorrecte\u001B[0m");
                     }
                 }
@@ -345,17 +597,24 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 // et mettre à jour les classes prédites et les métriques des règles
                 List<FormalConcept> modifiedConcepts = new ArrayList<>();
                 List<Rule> modifiedRules = new ArrayList<>();
-                int updatedConcepts = ruleExtractor.updateConceptsWithNewInstance(
-                    allConcepts,
+                // Seuls les concepts dont l'intention est satisfaite par l'instance sont visités
+                List<FormalConcept> candidateConcepts = conceptIndex.satisfiedBy(currentInstance);
+                if (conceptArchive != null) {
+                    for (FormalConcept candidate : candidateConcepts) {
+                        lastMatched.put(candidate, instancesSeen);
+                    }
+                }
+                int updatedConcepts = candidateConcepts.isEmpty() ? 0 : ruleExtractor.updateConceptsWithNewInstance(
+                    candidateConcepts,
                     currentInstance,
                     context.getNumInstances() - 1,
-                    this.rules, // utiliser toutes les règles pour la mise à jour généralisée
+                    ruleIndex(), // règles couvertes par les concepts modifiés, retrouvées via le trie
                     context,
                     modifiedConcepts,
                     modifiedRules
                 );
 
-                if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                if (cancContext.isDebugEnabled()) {
                     String prefix = isCorrectPrediction ? "[OPTIMISATION] " : "[OPTIMISATION - INSTANCE MAL CLASSIFIÉE] ";
                     System.out.println(prefix + applicableRules.size() + " règles applicables, " +
                                       updatedConcepts + " concepts modifiés sans reconstruction");
@@ -376,7 +635,12 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                                 sbConcepts.append(idx + 1);
                                 firstIdx = false;
                             }
-                            sbConcepts.append("]\n\n");
+                            sbConcepts.append("]");
+                            if (c.isExtentFree()) {
+                                sbConcepts.append(" (non conservée : ").append(c.getExtentSize())
+                                        .append(" instances, effectifs ").append(Arrays.toString(c.getClassCounts())).append(")");
+                            }
+                            sbConcepts.append("\n\n");
                         }
                         com.lamsili.canc.app.CANCDebugger.printDebugSection(
                             isCorrectPrediction ? "CONCEPTS MODIFIÉS (INSTANCE BIEN CLASSIFIÉE)" : "CONCEPTS MODIFIÉS (INSTANCE MAL CLASSIFIÉE)",
@@ -393,6 +657,159 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 }
             }
         }
+
+        // Budget vérifié en O(1) à chaque instance ; l'expiration (TTL) demande un parcours, fait périodiquement
+        if (usageTracker != null && firstModelBuilt
+                && ((maxConceptsOption.getValue() > 0 && allConcepts.size() > maxConceptsOption.getValue())
+                    || (evictionPolicy.expires()
+                        && instancesSeen - lastExpiryCheck >= Math.max(1, conceptTTLOption.getValue() / 4)))) {
+            evictConcepts();
+        }
+        if (conceptArchive != null && firstModelBuilt
+                && instancesSeen - lastDemotionCheck >= Math.max(1, conceptIdleDemotionOption.getValue() / 4)) {
+            demoteIdleConcepts();
+            lastDemotionCheck = instancesSeen;
+        }
+        if (ruleCompactionPeriodOption.getValue() > 0 && firstModelBuilt
+                && instancesSeen - lastRuleCompaction >= ruleCompactionPeriodOption.getValue()) {
+            compactRules();
+            lastRuleCompaction = instancesSeen;
+        }
+    }
+
+    /**
+     * Compaction des règles : retire les règles dont le poids est sous le plancher (-W) et, avec -U,
+     * celles subsumées par une règle de même classe, de prémisse strictement plus générale et de
+     * confiance au moins égale (sous-ensembles trouvés par le trie de l'index).
+     */
+    private void compactRules() {
+        if (rules.isEmpty()) return;
+        double floor = ruleWeightFloorOption.getValue();
+        Set<Rule> belowFloor = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Rule rule : rules) {
+            if (rule.getWeight() < floor) belowFloor.add(rule);
+        }
+
+        Set<Rule> subsumed = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (pruneSubsumedRulesOption.isSet()) {
+            RuleIndex index = ruleIndex();
+            Instances header = context.getInstance(0).dataset();
+            for (Rule rule : rules) {
+                if (belowFloor.contains(rule)) continue;
+                for (Rule general : index.generalizationsOf(rule, header)) {
+                    // Une règle sous le plancher ne justifie pas une subsomption ; une règle subsumée si,
+                    // car celle qui la subsume est aussi plus générale que la règle courante
+                    if (!belowFloor.contains(general)
+                            && Objects.equals(general.getPredictedClass(), rule.getPredictedClass())
+                            && general.getConfidence() >= rule.getConfidence()) {
+                        subsumed.add(rule);
+                        break;
+                    }
+                }
+            }
+        }
+
+        Set<Rule> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        removed.addAll(belowFloor);
+        removed.addAll(subsumed);
+        removeRules(removed);
+
+        if (!removed.isEmpty() && cancContext.isDebugEnabled()) {
+            System.out.println("[COMPACTION RÈGLES] Instance #" + instancesSeen + " : " + belowFloor.size()
+                    + " sous le plancher, " + subsumed.size() + " subsumées (" + rules.size() + " règles)");
+        }
+    }
+
+    /**
+     * Retire des règles du modèle sans retirer leurs concepts.
+     */
+    private void removeRules(Set<Rule> removed) {
+        if (removed.isEmpty()) return;
+        for (List<Rule> conceptRules : rulesByConcept.values()) {
+            conceptRules.removeIf(removed::contains);
+        }
+        if (ruleStore != null) {
+            for (Rule rule : removed) ruleStore.remove(rule);
+        }
+        if (usageTracker != null) usageTracker.forgetRules(removed);
+        removeFromRuleList(removed);
+        rulesGenerated = rules.size();
+    }
+
+    /**
+     * Rétrograde dans l'archive les concepts chauds sans correspondance depuis conceptIdleDemotion instances.
+     * L'index inversé garde leurs listes ; leurs règles quittent le modèle jusqu'à leur promotion.
+     */
+    private void demoteIdleConcepts() {
+        int idle = conceptIdleDemotionOption.getValue();
+        Set<FormalConcept> demoted = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FormalConcept concept : allConcepts) {
+            if (demoted.contains(concept) || instancesSeen - lastMatched.getOrDefault(concept, instancesSeen) < idle) {
+                continue;
+            }
+            try {
+                long handle = conceptArchive.append(concept);
+                conceptIndex.demote(concept, handle);
+                demoted.add(concept);
+            } catch (java.io.IOException e) {
+                System.err.println("Erreur d'écriture dans l'archive des concepts : " + e.getMessage());
+                break;
+            }
+        }
+        if (demoted.isEmpty()) return;
+
+        // Déjà sortis de l'index : removeConcepts ne retire que le tier chaud
+        removeConcepts(demoted);
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[TIER FROID] Instance #" + instancesSeen + " : " + demoted.size() + " concepts rétrogradés ("
+                    + allConcepts.size() + " chauds, " + conceptIndex.coldSize() + " froids)");
+        }
+    }
+
+    /**
+     * Promeut les concepts froids dont l'intention est satisfaite par l'instance : ils sont relus depuis
+     * l'archive, réintégrés au tier chaud et leurs règles sont extraites à nouveau. Un concept froid dont
+     * l'intention a été recréée entre-temps par la structure incrémentale (-i) est oublié au profit du
+     * concept chaud, de même qu'un enregistrement illisible, qui n'est donc signalé qu'une fois.
+     */
+    private void promoteMatchingConcepts(Instance instance) {
+        List<FormalConcept> promoted = new ArrayList<>();
+        for (int id : conceptIndex.coldSatisfiedBy(instance)) {
+            FormalConcept concept;
+            try {
+                concept = conceptArchive.read(conceptIndex.coldHandle(id));
+            } catch (java.io.IOException e) {
+                System.err.println("Erreur de lecture dans l'archive des concepts, concept froid oublié : " + e.getMessage());
+                conceptIndex.discardCold(id, null);
+                continue;
+            }
+            if (incrementalLattice != null && !incrementalLattice.add(concept)) {
+                conceptIndex.discardCold(id, concept);
+                continue;
+            }
+            prepareExtentStorage(concept);
+            conceptIndex.promote(id, concept);
+            promoted.add(concept);
+        }
+        if (promoted.isEmpty()) return;
+
+        allConcepts.addAll(promoted);
+        for (FormalConcept concept : promoted) {
+            lastMatched.put(concept, instancesSeen);
+        }
+        List<Rule> newRules = extractRulesFor(promoted);
+        if (isFeatureSelectionEnabled()) {
+            restrictRulesToActiveAttributes(newRules);
+        }
+        addToRuleList(newRules);
+        conceptsGenerated = allConcepts.size();
+        rulesGenerated = rules.size();
+        mergeRediscoveredConcepts(promoted);
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[TIER FROID] Instance #" + instancesSeen + " : " + promoted.size() + " concepts promus");
+        }
     }
 
     /**
@@ -404,7 +821,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         resetSelectionDetailsFlag();
 
         // Affichage de débogage (date et instances)
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (cancContext.isDebugEnabled()) {
             // Afficher la date de recalcul
             java.util.Date currentDate = new java.util.Date();
             String dateStr = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(currentDate);
@@ -412,6 +829,10 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
             // Afficher les instances traitées
             com.lamsili.canc.app.CANCDebugger.printProcessedInstances(context);
+
+            if (!context.getInactiveAttributes().isEmpty()) {
+                System.out.println("[ATTRIBUTS ÉLAGUÉS] " + context.getInactiveAttributes());
+            }
         }
 
         // Réinitialiser la liste des résultats de prédiction
@@ -422,7 +843,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         lastModelBuildSize = instancesSeen;
 
         // Affichage des concepts générés
-        if (displayConcepts && com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (displayConcepts && cancContext.isDebugEnabled()) {
             String description = com.lamsili.canc.app.CANCDebugger.getConceptsDescription(
                 currentConcepts, context, currentVariant, cachedPertinentAttribute,
                 closureOperator, ruleExtractor, instancesSeen
@@ -432,13 +853,13 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         }
 
         // Affichage des règles extraites
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled() && rules != null && !rules.isEmpty()) {
+        if (cancContext.isDebugEnabled() && rules != null && !rules.isEmpty()) {
             String rulesDescription = com.lamsili.canc.app.CANCDebugger.generateRulesDescription(rules);
             com.lamsili.canc.app.CANCDebugger.printDebugSection("RÈGLES EXTRAITES", rulesDescription);
         }
 
         // Gestion des poids et affichage des prédictions
-        boolean showPredictions = com.lamsili.canc.app.CANCDebugger.isShowPredictions() &&
+        boolean showPredictions = cancContext.isShowPredictions() &&
                                  rules != null && !rules.isEmpty();
 
         // Faire une prédiction pour chaque instance du contexte actuel
@@ -456,8 +877,9 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 // Obtenir la classe réelle
                 String actualClassName = context.getInstanceClass(i);
 
-                // Obtenir les votes pour cette instance
-                double[] votes = fcPredict(instance);
+                // Règles votantes et votes pour cette instance
+                List<Rule> applicableRules = findApplicableRules(instance);
+                double[] votes = fcPredict(instance, applicableRules);
 
                 // Déterminer la classe prédite
                 int predictedClassIndex = Utils.maxIndex(votes);
@@ -474,19 +896,14 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 // Stocker le poids actuel (avant ajustement)
                 result.weightBefore = context.getInstanceWeight(i);
 
-                // Identifier les règles applicables
-                result.applicableRules = new ArrayList<>();
-                for (Rule rule : rules) {
-                    if (rule.appliesTo(instance)) {
-                        result.applicableRules.add(rule);
-                    }
-                }
+                // Règles applicables : celles qui ont voté
+                result.applicableRules = applicableRules;
 
                 // Stocker le résultat dans le tableau ordonné
                 orderedResults[i] = result;
                 
                 // Déterminer si l'instance est correctement classifiée
-                boolean isCorrectlyClassified = actualClassName.equals(predictedClassName);
+                boolean isCorrectlyClassified = predictedClassIndex == (int) instance.classValue();
                 
                 // Ajuster le poids directement (remplace adjustInstanceWeight)
                 double currentWeight = context.getInstanceWeight(i);
@@ -509,11 +926,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             // Ajuster les poids sans afficher les prédictions (remplace adjustWeightsBasedOnPredictions)
             for (int i = 0; i < context.getNumInstances(); i++) {
                 Instance instance = context.getInstance(i);
-                String actualClassName = context.getInstanceClass(i);
-                double[] votes = fcPredict(instance);
-                int predictedClassIndex = Utils.maxIndex(votes);
-                String predictedClassName = instance.attribute(instance.classIndex()).value(predictedClassIndex);
-                boolean isCorrectlyClassified = actualClassName.equals(predictedClassName);
+                int predictedClassIndex = Utils.maxIndex(fcPredict(instance));
+                boolean isCorrectlyClassified = predictedClassIndex == (int) instance.classValue();
                 double currentWeight = context.getInstanceWeight(i);
                 double newWeight = isCorrectlyClassified ? currentWeight * 0.5 : currentWeight * 1.5;
                 context.setInstanceWeight(i, newWeight);
@@ -524,7 +938,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         context.normalizeWeights();
 
         // Affichage des poids normalisés
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (cancContext.isDebugEnabled()) {
             System.out.println("\u001B[32m [POIDS] Normalisation effectuée - Somme des poids: " +
                               context.getTotalWeight() + " \u001B[0m");
         }
@@ -542,7 +956,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         currentConcepts = concepts;
 
         // Ajouter les nouveaux concepts à la liste de tous les concepts
-        allConcepts.addAll(concepts);
+        addConcepts(concepts);
 
         // Mettre à jour le compteur de concepts pour inclure tous les concepts générés
         conceptsGenerated = allConcepts.size();
@@ -551,22 +965,326 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         lastModelBuildSize = instancesSeen;
 
         // Utiliser RuleExtractor pour extraire les règles à partir des concepts
-        // Transmettre le paramètre useDisjointRules depuis CANCDebugger
-        List<Rule> newRules = ruleExtractor.extractRules(concepts, context,
-                    com.lamsili.canc.app.CANCDebugger.isUseDisjointRules());
+        List<Rule> newRules = extractRulesFor(concepts);
 
         // Calculer les métriques (support, confiance) uniquement pour les nouvelles règles
         if (newRules != null && !newRules.isEmpty()) {
-            ruleExtractor.calculateRuleMetrics(newRules, context);
+            if (isFeatureSelectionEnabled()) {
+                // Recalcule aussi les métriques, sur la prémisse évaluée
+                restrictRulesToActiveAttributes(newRules);
+            } else {
+                ruleExtractor.calculateRuleMetrics(newRules, context);
+            }
 
-            // Ajouter toutes les règles sans vérifier les duplications
-            this.rules.addAll(newRules);
+            // Ajouter toutes les règles ; les doublons sont fusionnés ci-dessous si le registre est actif
+            addToRuleList(newRules);
             this.rulesGenerated = rules.size();
         }
 
+        if (!deferConceptMerge) {
+            mergeRediscoveredConcepts(concepts);
+        }
+    }
+
+    /**
+     * Extrait les règles concept par concept pour mémoriser leur origine.
+     * Le résultat est identique à un appel unique à extractRules sur la liste.
+     */
+    private List<Rule> extractRulesFor(List<FormalConcept> concepts) {
+        List<Rule> newRules = new ArrayList<>();
+        int mergedRules = 0;
+        for (FormalConcept concept : concepts) {
+            List<Rule> conceptRules = ruleExtractor.extractRules(Collections.singletonList(concept), context,
+                    cancContext.isUseDisjointRules());
+            List<Rule> ownRules = rulesByConcept.computeIfAbsent(concept, c -> new ArrayList<>());
+            for (Rule rule : conceptRules) {
+                Rule canonical = ruleStore != null ? ruleStore.intern(rule) : rule;
+                if (canonical != rule) {
+                    ruleExtractor.mergeRule(canonical, rule, context);
+                    mergedRules++;
+                } else {
+                    newRules.add(rule);
+                }
+                ownRules.add(canonical);
+            }
+            if (usageTracker != null) {
+                usageTracker.register(concept, ownRules, instancesSeen);
+            }
+        }
+        if (mergedRules > 0 && cancContext.isDebugEnabled()) {
+            System.out.println("[MAGASIN RÈGLES] " + mergedRules + " règles fusionnées dans une règle existante ("
+                    + ruleStore.size() + " prémisses distinctes)");
+        }
+        return newRules;
+    }
+
+    /**
+     * Remplace les concepts redécouverts par leur représentant canonique : l'extension est fusionnée
+     * dans le concept existant, dont les règles sont mises à jour, et le doublon est retiré avec ses règles.
+     *
+     * @param generated Concepts issus de la dernière génération (extensions en indices du contexte courant)
+     */
+    private void mergeRediscoveredConcepts(List<FormalConcept> generated) {
+        if (conceptRegistry == null || generated.isEmpty()) return;
+
+        Set<FormalConcept> duplicates = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<FormalConcept> merged = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FormalConcept concept : generated) {
+            FormalConcept canonical = conceptRegistry.intern(concept);
+            if (canonical == concept) continue;
+            duplicates.add(concept);
+            merged.add(canonical);
+        }
+        if (duplicates.isEmpty()) return;
+
+        removeConcepts(duplicates);
+        for (FormalConcept canonical : merged) {
+            ruleExtractor.updateRulesForConcepts(Collections.singletonList(canonical),
+                    rulesByConcept.getOrDefault(canonical, Collections.emptyList()), context);
+        }
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[REGISTRE CONCEPTS] " + duplicates.size() + " concepts redécouverts fusionnés ("
+                    + conceptRegistry.size() + " concepts canoniques)");
+        }
+    }
+
+
+
+    /**
+     * Applique la politique d'éviction : concepts expirés (TTL) puis, au-delà du budget,
+     * les concepts de plus faible score de rétention. Leurs règles sont retirées avec eux.
+     */
+    private void evictConcepts() {
+        Set<FormalConcept> victims = usageTracker.selectVictims(allConcepts, rulesByConcept, evictionPolicy,
+                maxConceptsOption.getValue(), conceptTTLOption.getValue(), instancesSeen);
+        if (evictionPolicy.expires()) {
+            lastExpiryCheck = instancesSeen;
+        }
+        if (victims.isEmpty()) return;
+
+        removeConcepts(victims);
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[ÉVICTION " + evictionPolicy + "] Instance #" + instancesSeen + " : " + victims.size()
+                    + " concepts évincés (" + allConcepts.size() + " concepts, " + rules.size() + " règles)");
+        }
+    }
+
+    /**
+     * Retire des concepts du modèle avec leurs règles, de toutes les structures qui les référencent.
+     *
+     * @param removed Concepts à retirer (ensemble d'identité)
+     */
+    private void removeConcepts(Set<FormalConcept> removed) {
+        Set<Rule> removedRules = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (FormalConcept concept : removed) {
+            List<Rule> ownRules = rulesByConcept.remove(concept);
+            List<Rule> conceptRules = releaseRules(ownRules);
+            removedRules.addAll(conceptRules);
+            conceptIndex.remove(concept);
+            if (conceptRegistry != null) conceptRegistry.remove(concept);
+            if (incrementalLattice != null) incrementalLattice.remove(concept);
+            lastMatched.remove(concept);
+            if (usageTracker != null) {
+                usageTracker.forget(concept, ownRules != null ? ownRules : Collections.emptyList());
+            }
+        }
+        allConcepts.removeIf(removed::contains);
+        removeFromRuleList(removedRules);
+        conceptsGenerated = allConcepts.size();
+        rulesGenerated = rules.size();
+    }
+
+    /**
+     * Retourne les règles d'un concept retiré qui ne sont plus portées par aucun autre concept
+     * (une règle fusionnée par le magasin -R peut être partagée).
+     */
+    private List<Rule> releaseRules(List<Rule> conceptRules) {
+        if (conceptRules == null) return Collections.emptyList();
+        if (ruleStore == null) return conceptRules;
+        List<Rule> released = new ArrayList<>();
+        for (Rule rule : conceptRules) {
+            if (ruleStore.release(rule)) released.add(rule);
+        }
+        return released;
+    }
+
+    /**
+     * Insère une instance rejetée dans la structure de concepts incrémentale.
+     * Les règles des concepts dont l'extension change sont mises à jour et des règles ne sont
+     * extraites que pour les concepts nouvellement créés, sans reconstruction du modèle.
+     *
+     * @param instance L'instance rejetée (déjà ajoutée au contexte)
+     * @param instanceIndex Son index dans le contexte
+     */
+    private void insertIntoLattice(Instance instance, int instanceIndex) {
+        Set<Map.Entry<String, String>> objectIntent = closureOperator.phi(Collections.singleton(instanceIndex));
+
+        List<FormalConcept> modifiedConcepts = new ArrayList<>();
+        List<FormalConcept> createdConcepts = new ArrayList<>();
+        incrementalLattice.insert(instanceIndex, objectIntent, context, modifiedConcepts, createdConcepts);
+
+        // Seules les règles issues des concepts étendus sont mises à jour (une règle partagée par -R n'est
+        // visitée qu'une fois) ; celles des concepts créés sont extraites ci-dessous
+        Set<Rule> modifiedRules = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Rule> rulesToUpdate = new ArrayList<>();
+        for (FormalConcept concept : modifiedConcepts) {
+            for (Rule rule : rulesByConcept.getOrDefault(concept, Collections.emptyList())) {
+                if (modifiedRules.add(rule)) rulesToUpdate.add(rule);
+            }
+        }
+        ruleExtractor.updateRulesForConcepts(modifiedConcepts, rulesToUpdate, context);
+
+        if (!createdConcepts.isEmpty()) {
+            addConcepts(createdConcepts);
+            currentConcepts = createdConcepts;
+            conceptsGenerated = createdConcepts.size();
+
+            List<Rule> newRules = extractRulesFor(createdConcepts);
+            if (isFeatureSelectionEnabled()) {
+                restrictRulesToActiveAttributes(newRules);
+            }
+            addToRuleList(newRules);
+            rulesGenerated = rules.size();
+            mergeRediscoveredConcepts(createdConcepts);
+        }
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[TREILLIS INCRÉMENTAL] Instance #" + instancesSeen + " : " + createdConcepts.size()
+                    + " concepts créés, " + modifiedConcepts.size() + " concepts étendus (" + incrementalLattice.size()
+                    + " concepts indexés)");
+        }
+    }
+
+    /**
+     * Ajoute des concepts à l'historique et à l'index inversé.
+     */
+    private void addConcepts(List<FormalConcept> concepts) {
+        for (FormalConcept concept : concepts) {
+            prepareExtentStorage(concept);
+        }
+        allConcepts.addAll(concepts);
+        conceptIndex.addAll(concepts);
+        if (conceptArchive != null) {
+            for (FormalConcept concept : concepts) {
+                lastMatched.put(concept, instancesSeen);
+            }
+        }
+    }
+
+    /**
+     * Choisit la représentation de l'extension d'un concept qui entre dans le modèle : statistiques
+     * suffisantes lues sur le contexte courant (-F) ou blocs partagés (-S).
+     */
+    private void prepareExtentStorage(FormalConcept concept) {
+        if (extentFreeConceptsOption.isSet()) {
+            concept.retainStatisticsOnly(context);
+        } else if (shareExtentsOption.isSet()) {
+            concept.shareExtent(cancContext.getExtentChunkPool());
+        }
+    }
+
+    /**
+     * Les blocs partagés ne sont pas sérialisés : les extensions relues rejoignent le pool de ce modèle.
+     */
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (cancContext == null) return;
+        for (FormalConcept concept : allConcepts) {
+            if (concept.isExtentShared()) {
+                concept.shareExtent(cancContext.getExtentChunkPool());
+            }
+        }
+    }
+
+    /**
+     * @return true si la sélection en ligne des attributs est configurée
+     */
+    private boolean isFeatureSelectionEnabled() {
+        return featureSelectionTopKOption.getValue() > 0 || featureSelectionMinGainOption.getValue() > 0.0;
+    }
+
+    /**
+     * Réévalue la sélection d'attributs (top-k et/ou seuil de gain) à partir des tables de contingence
+     * incrémentales du contexte, puis restreint les règles existantes au nouveau sous-ensemble actif.
+     * Les fermetures et la sélection des couples consultent directement le contexte.
+     */
+    private void updateAttributeSelection() {
+        if (!isFeatureSelectionEnabled()) return;
+        if (lastFeatureSelectionAt >= 0 && instancesSeen - lastFeatureSelectionAt < featureSelectionPeriodOption.getValue()) {
+            return;
+        }
+        Set<String> selected = context.selectInformativeAttributes(featureSelectionTopKOption.getValue(),
+                featureSelectionMinGainOption.getValue());
+        lastFeatureSelectionAt = instancesSeen;
+        restrictRulesToActiveAttributes(rules);
+        // Prémisses évaluées modifiées : trie à recompiler, diagramme à reconstruire
+        if (ruleIndex != null) ruleIndex.invalidate();
+        rulesModCount++;
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[SÉLECTION ATTRIBUTS] Instance #" + instancesSeen + " - attributs actifs: " + selected);
+        }
+    }
+
+    /**
+     * Ajoute des règles en fin de liste en tenant à jour l'index et, s'il reflète la liste, le
+     * diagramme de Hasse.
+     */
+    private void addToRuleList(List<Rule> added) {
+        boolean diagramInSync = hasseDiagram != null && hasseDiagramModCount == rulesModCount;
+        rules.addAll(added);
+        if (ruleIndex != null) ruleIndex.addAll(added);
+        rulesModCount++;
+        if (diagramInSync) {
+            hasseDiagram.addAll(added);
+            hasseDiagramModCount = rulesModCount;
+        }
+    }
+
+    /**
+     * Retire des règles de la liste, de l'index et, s'il reflète la liste, du diagramme de Hasse.
+     */
+    private void removeFromRuleList(Set<Rule> removed) {
+        boolean diagramInSync = hasseDiagram != null && hasseDiagramModCount == rulesModCount;
+        rules.removeIf(removed::contains);
+        if (ruleIndex != null) ruleIndex.removeAll(removed);
+        rulesModCount++;
+        if (diagramInSync) {
+            hasseDiagram.removeAll(removed);
+            hasseDiagramModCount = rulesModCount;
+        }
     }
 
+    /**
+     * Restreint l'évaluation des règles aux conditions portant sur des attributs actifs, puis recalcule
+     * leurs métriques (occurrence de la prémisse, vrais positifs, confiance, poids) sur la prémisse évaluée.
+     */
+    private void restrictRulesToActiveAttributes(List<Rule> targetRules) {
+        if (targetRules == null) return;
+        Set<String> inactive = context.getInactiveAttributes();
+        for (Rule rule : targetRules) {
+            rule.restrictToActiveAttributes(inactive);
+        }
+        ruleExtractor.updateRuleMetrics(targetRules, context);
+    }
 
+    /**
+     * Crée un opérateur de fermeture configuré selon les options du classifieur (φ approximatif).
+     *
+     * @param ctx Le contexte nominal sur lequel opère la fermeture
+     * @return L'opérateur de fermeture configuré
+     */
+    private ClosureOperator newClosureOperator(NominalContext ctx) {
+        ClosureOperator operator = new ClosureOperator(ctx);
+        operator.setDebugEnabled(cancContext.isDebugEnabled());
+        operator.setApproximatePhi(approxPhiMinExtentOption.getValue(),
+                approxPhiToleranceOption.getValue(),
+                approxPhiErrorProbabilityOption.getValue(),
+                !approxPhiAcceptOption.isSet());
+        return operator;
+    }
 
     /**
      * Génère les concepts formels à partir du contexte actuel en respectant les contraintes de la variante.
@@ -576,30 +1294,76 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     private List<FormalConcept> generateConcepts() {
         // Initialiser l'operateur de fermeture si nécessaire
         if (closureOperator == null) {
-            closureOperator = new ClosureOperator(context);
+            closureOperator = newClosureOperator(context);
         }
 
         // Initialiser le couple selector si nécessaire
         if (coupleSelector == null) {
-            coupleSelector = new NCACoupleSelector(context);
+            coupleSelector = new NCACoupleSelector(context, cancContext);
         }
 
         // Utiliser la méthode handleSelectionDetails de CANCDebugger qui gère tout le processus
         // d'affichage des détails de sélection et la gestion du flag
         com.lamsili.canc.app.CANCDebugger.handleSelectionDetails(this);
 
+        // Borne de support de cette construction (recalculée sur la taille courante du contexte). La
+        // reconstruction restreinte après un rejet n'est pas bornée : son unique concept couvre l'instance rejetée
+        boolean restricted = currentVariant == Variant.CpNC_COMV && restrictPertinentAttributeToRejectedValue;
+        this.supportFilter = restricted ? null : newSupportFilter();
+
         // Générer les concepts selon la variante
+        List<FormalConcept> concepts;
         switch (currentVariant) {
             case CpNC_COMV:
-                return generateCpNC_COMV();
+                concepts = generateCpNC_COMV();
+                break;
             case CpNC_CORV:
-                return generateCpNC_CORV();
+                concepts = generateCpNC_CORV();
+                break;
             case CaNC_COMV:
-                return generateCaNC_COMV();
+                concepts = generateCaNC_COMV();
+                break;
             case CaNC_CORV:
-                return generateCaNC_CORV();
+                concepts = generateCaNC_CORV();
+                break;
+            case CfNC_FCbO:
+                concepts = generateCfNC_FCbO();
+                break;
             default:
-                return new ArrayList<>();
+                concepts = new ArrayList<>();
+        }
+        return supportFilter != null ? supportFilter.select(concepts) : concepts;
+    }
+
+    /**
+     * Crée la borne de support configurée pour le contexte courant.
+     *
+     * @return Le filtre, ou null si ni support minimal ni top-k n'est configuré
+     */
+    private SupportFilter newSupportFilter() {
+        int minSupport = (int) Math.ceil(minConceptSupportOption.getValue() * context.getNumInstances());
+        SupportFilter filter = new SupportFilter(minSupport, conceptTopKOption.getValue());
+        return filter.isUnbounded() ? null : filter;
+    }
+
+    /**
+     * Indique si une extension candidate peut encore donner un concept retenu.
+     * Le support étant anti-monotone, la fermeture n'est pas calculée pour un candidat refusé.
+     */
+    private boolean admitsSupport(Set<Integer> extent) {
+        return supportFilter == null || supportFilter.admits(extent.size());
+    }
+
+    /**
+     * Ajoute un concept généré et met à jour le seuil top-k. L'intention est celle qui a servi à la
+     * fermeture (φ n'est pas recalculé sur l'extension fermée).
+     */
+    private void addConcept(List<FormalConcept> concepts, ClosureOperator.Closure closure) {
+        Set<Integer> closedExtent = closure.getExtent();
+        ClosureOperator.PhiResult phiResult = closure.getPhi();
+        concepts.add(new FormalConcept(cancContext.getIntentCodec(), closedExtent, phiResult.getIntent(), phiResult.isExact()));
+        if (supportFilter != null) {
+            supportFilter.offer(closedExtent.size());
         }
     }
 
@@ -611,7 +1375,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     private List<FormalConcept> generateCpNC_COMV() {
         List<FormalConcept> concepts = new ArrayList<>();
-        String pertinentAttribute = coupleSelector.getMostPertinentAttribute();
+        String pertinentAttribute = resolvePertinentAttribute();
         this.cachedPertinentAttribute = pertinentAttribute;
         if (pertinentAttribute == null) return concepts;
         Map<String, Set<Integer>> valuesMap = context.getDeltaIndex().get(pertinentAttribute);
@@ -637,18 +1401,19 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             if (targetValue != null) {
                 Set<Integer> extent = closureOperator.delta(pertinentAttribute, targetValue);
                 if (extent != null && !extent.isEmpty()) {
-                    Set<Integer> closedExtent = closureOperator.galoisClosure(extent);
+                    ClosureOperator.Closure closure = closureOperator.closure(extent);
+                    Set<Integer> closedExtent = closure.getExtent();
                     if (closedExtent != null && !closedExtent.isEmpty()) {
-                        Set<Map.Entry<String, String>> intent = closureOperator.phi(closedExtent);
-                        concepts.add(new FormalConcept(closedExtent, intent));
-                        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                        ClosureOperator.PhiResult phiResult = closure.getPhi();
+                        concepts.add(new FormalConcept(cancContext.getIntentCodec(), closedExtent, phiResult.getIntent(), phiResult.isExact()));
+                        if (cancContext.isDebugEnabled()) {
                             System.out.println("[MODE RESTREINT] Concept (unique) généré pour " + pertinentAttribute + "=" + targetValue);
                         }
                     }
-                } else if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                } else if (cancContext.isDebugEnabled()) {
                     System.out.println("[MODE RESTREINT] Aucune occurrence pour " + pertinentAttribute + "=" + targetValue + " (aucun concept)");
                 }
-            } else if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            } else if (cancContext.isDebugEnabled()) {
                 System.out.println("[MODE RESTREINT] Valeur cible introuvable pour l'attribut pertinent '" + pertinentAttribute + "'");
             }
             // Reset et retour immédiat (comportement single-value seulement ici)
@@ -663,11 +1428,12 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             if (value == null) continue;
             Set<Integer> extent = closureOperator.delta(pertinentAttribute, value);
             if (extent == null || extent.isEmpty()) continue;
-            Set<Integer> closedExtent = closureOperator.galoisClosure(extent);
+            if (!admitsSupport(extent)) continue; // élagage iceberg / top-k avant la fermeture
+            ClosureOperator.Closure closure = closureOperator.closure(extent);
+            Set<Integer> closedExtent = closure.getExtent();
             if (closedExtent == null || closedExtent.isEmpty()) continue;
             if (!extent.equals(closedExtent)) continue; // on ne conserve que les fermés
-            Set<Map.Entry<String, String>> intent = closureOperator.phi(closedExtent);
-            concepts.add(new FormalConcept(closedExtent, intent));
+            addConcept(concepts, closure);
         }
 
         return concepts;
@@ -683,7 +1449,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         List<FormalConcept> concepts = new ArrayList<>();
 
         // Obtenir l'attribut le plus pertinent
-        String pertinentAttribute = coupleSelector.getMostPertinentAttribute();
+        String pertinentAttribute = resolvePertinentAttribute();
         // Stocker l'attribut pertinent pour éviter de le recalculer
         this.cachedPertinentAttribute = pertinentAttribute;
         if (pertinentAttribute == null) return concepts;
@@ -698,20 +1464,61 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         // Vérification supplémentaire contre les ensembles vides
         if (extent == null || extent.isEmpty()) return concepts;
 
+        // Élagage iceberg : la fermeture d'un candidat trop peu supporté n'est pas calculée
+        if (!admitsSupport(extent)) return concepts;
+
         // Calculer la fermeture de Galois de l'extension
-        Set<Integer> closedExtent = closureOperator.galoisClosure(extent);
+        ClosureOperator.Closure closure = closureOperator.closure(extent);
+        Set<Integer> closedExtent = closure.getExtent();
 
         // Si l'extension n'est pas égale à sa fermeture, elle n'est pas fermée
         if (!extent.equals(closedExtent)) return concepts;
 
-        // Obtenir l'intention en utilisant phi sur l'extension fermée
-        Set<Map.Entry<String, String>> intent = closureOperator.phi(closedExtent);
+        // Créer le concept en utilisant l'extension fermée et son intention associée (via phi)
+        addConcept(concepts, closure);
+        return concepts;
+    }
 
-        // Créer le concept en utilisant l'extension fermée et son intention associée
-        concepts.add(new FormalConcept(closedExtent, intent));
+    /**
+     * Génère les concepts pour la variante CfNC_FCbO.
+     * Énumère le treillis du contexte courant avec FCbO, dans la limite du nombre de concepts et du temps.
+     *
+     * @return Liste des concepts formels générés
+     */
+    private List<FormalConcept> generateCfNC_FCbO() {
+        FCbOEnumerator enumerator = new FCbOEnumerator(context, cancContext.getIntentCodec(), latticeMaxConceptsOption.getValue(),
+                latticeTimeLimitOption.getValue(), latticeParallelismOption.getValue());
+        enumerator.setSupportFilter(supportFilter);
+        List<FormalConcept> concepts = enumerator.enumerate();
+
+        if (cancContext.isDebugEnabled()) {
+            System.out.println("[FCbO] " + enumerator.getProducedCount() + " concepts énumérés"
+                    + (enumerator.wasTruncated() ? " (énumération interrompue par la limite)" : ""));
+        }
         return concepts;
     }
 
+    /**
+     * Déduplication des extensions fermées par empreinte de 128 bits : la comparaison complète avec le
+     * concept déjà généré n'a lieu qu'en cas d'empreinte identique. L'empreinte est calculée en
+     * O(|extension|), une fois par paire distincte, comme la fermeture qui la précède.
+     *
+     * @param generated Empreintes des extensions déjà générées
+     * @param concepts Concepts générés (la position du prochain concept sert de référence)
+     * @param closedExtent Extension candidate
+     * @return true si l'extension n'a pas encore été générée (elle est alors enregistrée)
+     */
+    private boolean isNewExtent(ExtentFingerprintSet generated, List<FormalConcept> concepts, Set<Integer> closedExtent) {
+        return generated.addIfAbsent(ExtentFingerprint.of(closedExtent), concepts.size(), position -> {
+            FormalConcept existing = concepts.get(position);
+            if (existing.getExtentSize() != closedExtent.size()) return false;
+            for (int index : closedExtent) {
+                if (!existing.extentContains(index)) return false;
+            }
+            return true;
+        });
+    }
+
     /**
      * Génère les concepts pour la variante CaNC_COMV.
      * Utilise tous les attributs avec toutes leurs valeurs.
@@ -720,7 +1527,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     private List<FormalConcept> generateCaNC_COMV() {
         List<FormalConcept> concepts = new ArrayList<>();
-        Set<Set<Integer>> generatedExtents = new HashSet<>();
+        ExtentFingerprintSet generatedExtents = new ExtentFingerprintSet();
+        Set<Map.Entry<String, String>> visitedPairs = new HashSet<>();
 
         for (int i = 0; i < context.getNumInstances(); i++) {
             Instance instance = context.getInstance(i);
@@ -729,25 +1537,30 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             if (selectedPairs.isEmpty()) continue;
 
             for (Map.Entry<String, String> pair : selectedPairs) {
+                // Une paire déjà examinée a la même extension δ : ni fermeture ni empreinte à recalculer
+                if (!visitedPairs.add(pair)) continue;
+
                 // Calculer l'extension delta(attr, val)
                 Set<Integer> extent = closureOperator.delta(pair.getKey(), pair.getValue());
 
                 // Vérification supplémentaire contre les ensembles vides
                 if (extent == null || extent.isEmpty()) continue;
 
+                // Élagage iceberg / top-k : la fermeture d'un candidat trop peu supporté n'est pas calculée
+                if (!admitsSupport(extent)) continue;
+
                 // Calculer la fermeture de Galois de l'extension
-                Set<Integer> closedExtent = closureOperator.galoisClosure(extent);
+                ClosureOperator.Closure closure = closureOperator.closure(extent);
+                Set<Integer> closedExtent = closure.getExtent();
 
                 // Si l'extension n'est pas égale à sa fermeture, elle n'est pas fermée
                 if (!extent.equals(closedExtent)) continue;
 
-                // Éviter les duplications avec l'extension fermée
-                if (generatedExtents.contains(closedExtent)) continue;
-                generatedExtents.add(closedExtent);
+                // Éviter les duplications avec l'extension fermée (par empreinte)
+                if (!isNewExtent(generatedExtents, concepts, closedExtent)) continue;
 
                 // Créer le concept en utilisant l'extension fermée et son intention associée
-                Set<Map.Entry<String, String>> intent = closureOperator.phi(closedExtent);
-                concepts.add(new FormalConcept(closedExtent, intent));
+                addConcept(concepts, closure);
             }
         }
 
@@ -762,7 +1575,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     private List<FormalConcept> generateCaNC_CORV() {
         List<FormalConcept> concepts = new ArrayList<>();
-        Set<Set<Integer>> generatedExtents = new HashSet<>();
+        ExtentFingerprintSet generatedExtents = new ExtentFingerprintSet();
         Set<String> processedAttributes = new HashSet<>();
 
         for (int i = 0; i < context.getNumInstances(); i++) {
@@ -788,20 +1601,22 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 // Vérification supplémentaire contre les ensembles vides
                 if (extent == null || extent.isEmpty()) continue;
 
+                // Élagage iceberg / top-k : la fermeture d'un candidat trop peu supporté n'est pas calculée
+                if (!admitsSupport(extent)) continue;
+
                 // Calculer la fermeture de Galois de l'extension
-                Set<Integer> closedExtent = closureOperator.galoisClosure(extent);
+                ClosureOperator.Closure closure = closureOperator.closure(extent);
+                Set<Integer> closedExtent = closure.getExtent();
 
                 // Étant donné que galoisClosure garantit déjà la validité de la fermeture,
                 // cette vérification devient redondante mais permet de filtrer les extensions non fermées
                 if (!extent.equals(closedExtent)) continue;
 
-                // Éviter les duplications avec l'extension fermée
-                if (generatedExtents.contains(closedExtent)) continue;
-                generatedExtents.add(closedExtent);
+                // Éviter les duplications avec l'extension fermée (par empreinte)
+                if (!isNewExtent(generatedExtents, concepts, closedExtent)) continue;
 
                 // Créer le concept en utilisant l'extension fermée et son intention associée
-                Set<Map.Entry<String, String>> intent = closureOperator.phi(closedExtent);
-                concepts.add(new FormalConcept(closedExtent, intent));
+                addConcept(concepts, closure);
             }
         }
 
@@ -811,8 +1626,9 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     @Override
     public double[] getVotesForInstance(Instance instance) {
 
-        // Appeler fcPredict pour obtenir les votes (logique de prédiction pure)
-        double[] votes = fcPredict(instance);
+        // Règles applicables (toutes, ou les plus spécifiques en mode treillis) puis votes
+        List<Rule> applicableRules = findApplicableRules(instance);
+        double[] votes = voteWithRules(instance, applicableRules);
 
         // Déterminer la classe prédite (index du vote le plus élevé)
         int predictedClassIndex = Utils.maxIndex(votes);
@@ -833,14 +1649,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         // Ajouter le résultat à la liste des prédictions
         predictionResults.add(result);
 
-        // Initialiser directement la liste des règles applicables dans l'objet result
-        // Éviter la création d'une liste intermédiaire inutile
-        result.applicableRules = new ArrayList<>();
-        for (Rule rule : rules) {
-            if (rule.appliesTo(instance)) {
-                result.applicableRules.add(rule);
-            }
-        }
+        // Conserver les règles applicables déjà calculées pour le vote
+        result.applicableRules = applicableRules;
 
         // Stocker une copie des votes
         result.votes = Arrays.copyOf(votes, votes.length);
@@ -850,34 +1660,95 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
     /**
      * Prédit la classe pour une instance donnée en utilisant les règles générées.
-     * Cette méthode contient uniquement la logique de prédiction pure.
+     * Cette méthode contient uniquement la logique de prédiction pure. Les votes sont écrits dans un
+     * tableau réutilisé : le résultat n'est valide que jusqu'à la prédiction suivante (à copier pour
+     * être conservé).
      *
      * @param instance L'instance à classifier
      * @return Un tableau de votes pour chaque classe ou tableau avec valeurs spéciales pour indiquer un rejet
      */
     private double[] fcPredict(Instance instance) {
+        return fcPredict(instance, findApplicableRules(instance));
+    }
+
+    /**
+     * Variante de fcPredict pour des règles votantes déjà recherchées (voir findApplicableRules).
+     */
+    private double[] fcPredict(Instance instance, List<Rule> applicableRules) {
+        if (voteBuffer == null || voteBuffer.length != instance.numClasses()) {
+            voteBuffer = new double[instance.numClasses()];
+        }
+        return voteWithRules(instance, applicableRules, voteBuffer);
+    }
+
+    /**
+     * Retourne les règles qui votent pour l'instance : toutes les règles applicables, ou en mode
+     * treillis (-j) celles des concepts satisfaits les plus spécifiques du diagramme de Hasse.
+     */
+    private List<Rule> findApplicableRules(Instance instance) {
+        if (latticePredictionOption.isSet()) {
+            if (hasseDiagram == null || hasseDiagramModCount != rulesModCount) {
+                hasseDiagram = new ConceptHasseDiagram(rules);
+                hasseDiagramModCount = rulesModCount;
+            }
+            return hasseDiagram.mostSpecificRules(instance);
+        }
+        return applicableRulesOf(instance);
+    }
+
+    /**
+     * Règles applicables à l'instance d'après le trie, mémorisées pour la dernière instance tant que
+     * la liste des règles et leurs prémisses évaluées n'ont pas changé. La liste retournée est partagée
+     * et ne doit pas être modifiée.
+     */
+    private List<Rule> applicableRulesOf(Instance instance) {
+        if (instance != lookupInstance || lookupModCount != rulesModCount) {
+            lookupRules = ruleIndex().applicableRules(instance);
+            lookupInstance = instance;
+            lookupModCount = rulesModCount;
+        }
+        return lookupRules;
+    }
+
+    /**
+     * Retourne l'index des règles, construit à la première utilisation. Il suit ensuite la liste des
+     * règles par addToRuleList / removeFromRuleList, seuls points de modification de cette liste.
+     */
+    private RuleIndex ruleIndex() {
+        if (ruleIndex == null) {
+            ruleIndex = new RuleIndex();
+            ruleIndex.rebuild(rules);
+            ruleIndex.trackCoverage(context);
+            ruleExtractor.trackCoverageWith(ruleIndex);
+        }
+        return ruleIndex;
+    }
+
+    /**
+     * Calcule la distribution des votes à partir des règles applicables.
+     */
+    private double[] voteWithRules(Instance instance, List<Rule> applicableRules) {
+        return voteWithRules(instance, applicableRules, new double[instance.numClasses()]);
+    }
+
+    /**
+     * Calcule la distribution des votes dans un tableau fourni (remis à zéro), indexé par classe.
+     */
+    private double[] voteWithRules(Instance instance, List<Rule> applicableRules, double[] votes) {
         // Distribution des votes par classe
-        double[] votes = new double[instance.numClasses()];
+        Arrays.fill(votes, 0.0);
         boolean ruleApplied = false;
 
         // Compter les votes de chaque règle applicable, pondérés par la confiance
-        for (Rule rule : rules) {
-            if (rule.appliesTo(instance)) {
-                ruleApplied = true;
-                // Trouver l'index de la classe prédite
-                int predictedClassIndex = -1;
-                for (int i = 0; i < instance.numClasses(); i++) {
-                    if (instance.attribute(instance.classIndex()).value(i).equals(rule.getPredictedClass())) {
-                        predictedClassIndex = i;
-                        break;
-                    }
-                }
-
-                if (predictedClassIndex >= 0) {
-                    // Utiliser uniquement le poids de la règle pour le vote
-                    // Le poids est déjà calculé comme support * confiance dans RuleExtractor
-                    votes[predictedClassIndex] += rule.getWeight();
-                }
+        for (Rule rule : applicableRules) {
+            ruleApplied = true;
+            // Index de la classe prédite, compilé contre l'en-tête
+            int predictedClassIndex = rule.getPredictedClassIndex(instance);
+
+            if (predictedClassIndex >= 0) {
+                // Utiliser uniquement le poids de la règle pour le vote
+                // Le poids est déjà calculé comme support * confiance dans RuleExtractor
+                votes[predictedClassIndex] += rule.getWeight();
             }
         }
 
@@ -930,6 +1801,15 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         return "Classifieur basé sur l'analyse de concepts formels nominaux (NCA) avec 4 variantes";
     }
 
+    /**
+     * Obtenir la configuration propre à ce modèle (méthodes d'évaluation, règles disjointes)
+     *
+     * @return La configuration du modèle
+     */
+    public ModelContext getCancContext() {
+        return cancContext;
+    }
+
     /**
      * Obtenir la référence au contexte nominal utilisé par le classifieur
      *
@@ -946,9 +1826,35 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     public String getMostPertinentAttribute() {
         if (coupleSelector == null) {
-            coupleSelector = new NCACoupleSelector(context);
+            coupleSelector = new NCACoupleSelector(context, cancContext);
         }
-        return coupleSelector.getMostPertinentAttribute();
+        return resolvePertinentAttribute();
+    }
+
+    /**
+     * Retourne l'attribut pertinent, en réutilisant le dernier classement tant que l'écart entre les deux
+     * premiers attributs dépasse la tolérance du cache. Pendant une construction sur échantillon, le
+     * classement est celui de la fenêtre complète : il survit ainsi d'un échantillon à l'autre.
+     *
+     * @return Nom de l'attribut le plus pertinent
+     */
+    private String resolvePertinentAttribute() {
+        if (pertinentAttributeCache == null) {
+            return coupleSelector.getMostPertinentAttribute();
+        }
+        NominalContext rankingContext = rankingWindow != null ? rankingWindow : coupleSelector.getContext();
+        String leader = pertinentAttributeCache.getStableLeader(rankingContext);
+        if (leader != null) {
+            return leader;
+        }
+        if (rankingContext.getNumInstances() == 0) {
+            return null;
+        }
+        Map<String, Double> scores = rankingContext == coupleSelector.getContext()
+                ? coupleSelector.getAttributeScores()
+                : new NCACoupleSelector(rankingContext, cancContext).getAttributeScores();
+        return pertinentAttributeCache.update(rankingContext, scores, rankingContext.getInstance(0).numClasses(),
+                cancContext.getAttributeEvalMethod());
     }
 
     /**
@@ -959,7 +1865,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     public String getRelevantValue(String attribute) {
         if (closureOperator == null) {
-            closureOperator = new ClosureOperator(context);
+            closureOperator = newClosureOperator(context);
         }
         return closureOperator.getMostRelevantValue(attribute);
     }
@@ -971,7 +1877,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
      */
     public Map<String, Double> getAttributeScores() {
         if (coupleSelector == null) {
-            coupleSelector = new NCACoupleSelector(context);
+            coupleSelector = new NCACoupleSelector(context, cancContext);
         }
         return coupleSelector.getAttributeScores();
     }
@@ -988,10 +1894,10 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     /**
      * Obtenir la liste des règles générées
      *
-     * @return Liste des régles
+     * @return Liste des régles (en lecture seule : l'index et le diagramme de Hasse la suivent)
      */
     public List<Rule> getRules() {
-        return rules;
+        return Collections.unmodifiableList(rules);
     }
 
     /**
@@ -1006,7 +1912,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
     public String getRejectedPertinentAttributeValueIfRestricted() {
         if (!restrictPertinentAttributeToRejectedValue) return null;
         if (lastRejectedInstance == null) return null;
-         // Recalculer systématiquement l'attribut pertinent (ne pas utiliser le cache potentiellement obsolète)
+        // Ne pas utiliser cachedPertinentAttribute (potentiellement obsolète) : le classement n'est
+        // réutilisé que si l'écart entre les deux premiers attributs dépasse la tolérance du cache
         String attr = getMostPertinentAttribute();
         if (attr == null) return null;
         for (int i = 0; i < lastRejectedInstance.numAttributes(); i++) {
@@ -1066,7 +1973,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         if (fixedSampleSizeOption.getValue() > 0) {
             // Mode taille fixe
             samplesToKeep = Math.min(fixedSampleSizeOption.getValue(), numInstances);
-            if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            if (cancContext.isDebugEnabled()) {
                 System.out.println("\u001B[36m[ÉCHANTILLONNAGE] Mode taille fixe: sélection des " + samplesToKeep +
                         " meilleures instances (poids max) sur " + numInstances + "\u001B[0m");
             }
@@ -1075,7 +1982,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             sampleRatio = Math.random();
             // 4. Calculer le nombre d'instances à sélectionner
             samplesToKeep = Math.max(1, (int) (numInstances * sampleRatio));
-            if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            if (cancContext.isDebugEnabled()) {
                 System.out.println("\u001B[36m[ÉCHANTILLONNAGE] Mode aléatoire: sélection de " + samplesToKeep +
                         " instances sur " + numInstances + " (" + String.format("%.2f", sampleRatio * 100) + "%) pour reconstruire le modèle\u001B[0m");
             }
@@ -1083,6 +1990,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
         // 5. Créer un contexte temporaire avec les instances sélectionnées
         NominalContext sampledContext = new NominalContext();
+        // L'élagage des attributs est décidé sur toute la fenêtre, pas sur l'échantillon
+        sampledContext.inheritAttributeFilter(context);
         List<Integer> selectedOriginalIndices = new ArrayList<>(); // mapping index échantillon -> index original
 
         // 6. Conserver les instances sélectionnées pour la construction du modèle
@@ -1094,7 +2003,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             sampledContext.setInstanceWeight(i, context.getInstanceWeight(instanceIndex));
         }
 
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (cancContext.isDebugEnabled()) {
             System.out.println("\n=== INSTANCES SÉLECTIONNÉES (ÉCHANTILLON) ===");
             StringBuilder sbSample = new StringBuilder();
             sbSample.append("Instances traitées:\n");
@@ -1126,17 +2035,21 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
 
         // 7. Sauvegarder temporairement le contexte actuel
         NominalContext originalContext = this.context;
+        List<FormalConcept> newlyAdded = new ArrayList<>();
         try {
             this.context = sampledContext;
-            this.closureOperator = new ClosureOperator(sampledContext);
-            this.coupleSelector = new NCACoupleSelector(sampledContext);
+            this.closureOperator = newClosureOperator(sampledContext);
+            this.coupleSelector = new NCACoupleSelector(sampledContext, cancContext);
+            // Avec -h, l'attribut pertinent est classé sur la fenêtre complète et réutilisé d'un échantillon à l'autre
+            this.rankingWindow = pertinentAttributeCache != null ? originalContext : null;
+            deferConceptMerge = true;
             buildModelStructureOnly();
             if (allConcepts.size() > previousConceptCount) {
-                List<FormalConcept> newlyAdded = allConcepts.subList(previousConceptCount, allConcepts.size());
+                newlyAdded = new ArrayList<>(allConcepts.subList(previousConceptCount, allConcepts.size()));
                 for (FormalConcept fc : newlyAdded) {
                     fc.remapExtentIndices(selectedOriginalIndices);
                 }
-                if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+                if (cancContext.isDebugEnabled()) {
                     // Afficher maintenant TOUS les concepts (1..N) plutôt que seulement les nouveaux
                     String descAll = com.lamsili.canc.app.CANCDebugger.getConceptsDescription(
                             allConcepts,
@@ -1157,11 +2070,16 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
                 originalContext.setInstanceWeight(originalIdx, propagatedWeight);
             }
         } finally {
+            deferConceptMerge = false;
+            this.rankingWindow = null;
             this.context = originalContext;
-            this.closureOperator = new ClosureOperator(originalContext);
-            this.coupleSelector = new NCACoupleSelector(originalContext);
+            this.closureOperator = newClosureOperator(originalContext);
+            this.coupleSelector = new NCACoupleSelector(originalContext, cancContext);
         }
 
+        // Fusion des concepts redécouverts, une fois les extensions exprimées en indices originaux
+        mergeRediscoveredConcepts(newlyAdded);
+
         if (ruleExtractor != null && rules != null && !rules.isEmpty()) {
             ruleExtractor.calculateRuleMetrics(rules, context);
         }
@@ -1178,7 +2096,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         lastModelBuildSize = instancesSeen;
 
         // Debug (concepts & règles) comme dans buildModel
-        if (displayConcepts && com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+        if (displayConcepts && cancContext.isDebugEnabled()) {
             String description = com.lamsili.canc.app.CANCDebugger.getConceptsDescription(
                 currentConcepts, context, currentVariant, cachedPertinentAttribute,
                 closureOperator, ruleExtractor, instancesSeen
@@ -1186,7 +2104,7 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             this.conceptsDescription = description;
             com.lamsili.canc.app.CANCDebugger.printDebugSection("CONCEPTS GÉNÉRÉS Before", description);
         }
-        if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled() && rules != null && !rules.isEmpty()) {
+        if (cancContext.isDebugEnabled() && rules != null && !rules.isEmpty()) {
             String rulesDescription = com.lamsili.canc.app.CANCDebugger.generateRulesDescription(rules);
             com.lamsili.canc.app.CANCDebugger.printDebugSection("RÈGLES EXTRAITES After ", rulesDescription);
         }
@@ -1201,7 +2119,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
         for (int i = 0; i < context.getNumInstances(); i++) {
             Instance instance = context.getInstance(i);
             String actualClassName = context.getInstanceClass(i);
-            double[] votes = fcPredict(instance);
+            List<Rule> applicableRules = findApplicableRules(instance);
+            double[] votes = fcPredict(instance, applicableRules);
             int predictedClassIndex = Utils.maxIndex(votes);
             String predictedClassName = instance.attribute(instance.classIndex()).value(predictedClassIndex);
             predictionCounter++;
@@ -1209,13 +2128,8 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             result.classifier = this;
             result.votes = Arrays.copyOf(votes, votes.length);
             result.weightBefore = context.getInstanceWeight(i);
-            result.applicableRules = new ArrayList<>();
-            for (Rule rule : rules) {
-                if (rule.appliesTo(instance)) {
-                    result.applicableRules.add(rule);
-                }
-            }
-            boolean isCorrectlyClassified = actualClassName.equals(predictedClassName);
+            result.applicableRules = applicableRules;
+            boolean isCorrectlyClassified = predictedClassIndex == (int) instance.classValue();
             double currentWeight = context.getInstanceWeight(i);
             double newWeight = isCorrectlyClassified ? currentWeight * 0.5 : currentWeight * 1.5;
             context.setInstanceWeight(i, newWeight);
@@ -1226,9 +2140,9 @@ public class CANCLearnerMOA extends AbstractClassifier implements MultiClassClas
             predictionResults.add(orderedResults[i]);
         }
         context.normalizeWeights();
-        if (com.lamsili.canc.app.CANCDebugger.isShowPredictions()) {
+        if (cancContext.isShowPredictions()) {
             com.lamsili.canc.app.CANCDebugger.displayPredictionResults(predictionResults, currentVariant);
-            if (com.lamsili.canc.app.CANCDebugger.isDebugEnabled()) {
+            if (cancContext.isDebugEnabled()) {
                 System.out.println("\u001B[32m [POIDS] Normalisation effectuée (post-évaluation complète) - Somme des poids: " + context.getTotalWeight() + " \u001B[0m");
             }
         }
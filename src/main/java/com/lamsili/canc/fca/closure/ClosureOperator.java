@@ -62,6 +62,10 @@ public class ClosureOperator implements Serializable {
             // Check if the attribute is nominal
             if (instance.attribute(i).isNominal()) {
                 String attrName = instance.attribute(i).name();
+                // Ignore pruned (constant or near-constant) attributes
+                if (!context.isAttributeActive(attrName)) {
+                    continue;
+                }
                 // Get the attribute value as a string
                 String val;
                 if (instance.isMissing(i)) {
@@ -111,6 +115,141 @@ public class ClosureOperator implements Serializable {
         return commonPairs.entrySet();
     }
 
+    /**
+     * Résultat d'un calcul de φ accompagné d'un indicateur d'exactitude.
+     * Un résultat approximatif provient d'un échantillon de l'extension qui n'a pas été vérifié
+     * sur l'extension complète.
+     */
+    public static class PhiResult implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Set<Map.Entry<String, String>> intent;
+        private final boolean exact;
+
+        public PhiResult(Set<Map.Entry<String, String>> intent, boolean exact) {
+            this.intent = intent;
+            this.exact = exact;
+        }
+
+        public Set<Map.Entry<String, String>> getIntent() {
+            return intent;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+    }
+
+    // Paramètres du mode φ approximatif (désactivé par défaut)
+    private int approxPhiMinExtent = 0;            // taille d'extension à partir de laquelle on échantillonne (0 = désactivé)
+    private double approxPhiTolerance = 0.01;      // fraction ε d'instances contredisant un couple tolérée
+    private double approxPhiErrorProbability = 0.01; // probabilité δ d'accepter un couple contredit par plus de ε
+    private boolean approxPhiVerify = true;        // vérifier exactement les candidats survivants
+    private final Random phiSampler = new Random(1L);
+
+    /**
+     * Configure le mode φ approximatif.
+     *
+     * @param minExtent Taille d'extension au-delà de laquelle φ est d'abord évalué sur un échantillon (0 = désactivé)
+     * @param tolerance Fraction ε de l'extension qu'un couple peut contredire sans être détecté
+     * @param errorProbability Probabilité δ qu'un tel couple survive à l'échantillon
+     * @param verify true pour vérifier exactement les candidats survivants, false pour accepter le résultat échantillonné
+     */
+    public void setApproximatePhi(int minExtent, double tolerance, double errorProbability, boolean verify) {
+        this.approxPhiMinExtent = Math.max(0, minExtent);
+        this.approxPhiTolerance = tolerance;
+        this.approxPhiErrorProbability = errorProbability;
+        this.approxPhiVerify = verify;
+    }
+
+    /**
+     * Taille d'échantillon n telle qu'un couple contredit par au moins une fraction ε de l'extension
+     * survive avec une probabilité (1-ε)^n ≤ e^(-εn) ≤ δ.
+     *
+     * @return La taille d'échantillon utilisée par le mode φ approximatif
+     */
+    public int getApproximatePhiSampleSize() {
+        double epsilon = Math.min(1.0, Math.max(1e-9, approxPhiTolerance));
+        double delta = Math.min(1.0, Math.max(1e-300, approxPhiErrorProbability));
+        return Math.max(1, (int) Math.ceil(Math.log(1.0 / delta) / epsilon));
+    }
+
+    /** method 03
+     * Operator φ avec borne de confiance : pour les grandes extensions, les couples constants sont
+     * d'abord recherchés sur un échantillon aléatoire, puis seuls les candidats survivants sont vérifiés
+     * exactement via l'index δ (ou acceptés tels quels sous la probabilité d'erreur δ).
+     *
+     * @param instanceIndices L'extension dont on calcule l'intention
+     * @return L'intention et son indicateur exact/approximatif
+     */
+    public PhiResult phiWithConfidence(Set<Integer> instanceIndices) {
+        int sampleSize = getApproximatePhiSampleSize();
+        if (approxPhiMinExtent <= 0 || instanceIndices == null
+                || instanceIndices.size() <= approxPhiMinExtent || instanceIndices.size() <= sampleSize) {
+            return new PhiResult(phi(instanceIndices), true);
+        }
+
+        // Échantillon aléatoire sans remise, par sélection séquentielle (Knuth, algorithme S) : chaque
+        // instance est retenue avec la probabilité (places restantes) / (instances restantes), sans copie
+        // de l'extension ; le parcours s'arrête dès que l'échantillon est complet
+        Set<Integer> sample = new HashSet<>();
+        int remaining = instanceIndices.size();
+        for (Integer idx : instanceIndices) {
+            if (phiSampler.nextInt(remaining--) < sampleSize - sample.size()) {
+                sample.add(idx);
+                if (sample.size() == sampleSize) break;
+            }
+        }
+
+        // Les couples communs à l'échantillon forment un sur-ensemble de l'intention exacte
+        Set<Map.Entry<String, String>> candidates = phi(sample);
+        if (!approxPhiVerify) {
+            return new PhiResult(candidates, false);
+        }
+
+        // Vérification exacte des seuls candidats : le bitmap de δ(a,v) doit couvrir toute l'extension.
+        // L'extension est convertie une fois en bitmap ; chaque candidat coûte ensuite O(|extension| / 64)
+        Map<String, String> verified = new HashMap<>();
+        if (!candidates.isEmpty()) {
+            BitSet extent = new BitSet();
+            for (Integer idx : instanceIndices) {
+                extent.set(idx);
+            }
+            BitSet uncovered = new BitSet();
+            for (Map.Entry<String, String> candidate : candidates) {
+                if (holdsForAll(candidate.getKey(), candidate.getValue(), instanceIndices, extent, uncovered)) {
+                    verified.put(candidate.getKey(), candidate.getValue());
+                }
+            }
+        }
+        return new PhiResult(verified.entrySet(), true);
+    }
+
+    /**
+     * Vérifie qu'un couple (attribut, valeur) est partagé par toutes les instances d'une extension.
+     *
+     * @param extent L'extension en bitmap
+     * @param uncovered Bitmap de travail réutilisé d'un appel à l'autre
+     */
+    private boolean holdsForAll(String attribute, String value, Set<Integer> instanceIndices,
+                                BitSet extent, BitSet uncovered) {
+        BitSet posting = context.postingBitmap(attribute, value);
+        if (posting != null) {
+            uncovered.clear();
+            uncovered.or(extent);
+            uncovered.andNot(posting);
+            return uncovered.isEmpty();
+        }
+        // Couple absent de l'index (valeur manquante) : vérification directe sur les instances
+        for (Integer idx : instanceIndices) {
+            String actual = extractAttributeValuePairs(context.getInstance(idx)).get(attribute);
+            if (!value.equals(actual)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /** method 04
      * Calcule le score de pertinence d'une valeur en se basant sur l'entropie
      * H(Sv) = -∑(i=1 to k) pi * log2(pi)
@@ -242,10 +381,11 @@ public class ClosureOperator implements Serializable {
         String scoreType = (valueEvalMethod == ValueEvalMethod.ENTROPY) ? "entropie" : "support";
 
         // Un seul affichage via CANCDebugger (évite les doublons)
-        com.lamsili.canc.app.CANCDebugger.printRelevantValueCalculation(
+        if (debugEnabled) com.lamsili.canc.app.CANCDebugger.printRelevantValueCalculation(
                 attribute + " (méthode: " + methodName + ")",
                 valueScores,
-                mostRelevantValue);
+                mostRelevantValue,
+                valueEvalMethod);
 
 
         return mostRelevantValue;
@@ -270,6 +410,17 @@ public class ClosureOperator implements Serializable {
     // Méthode d'évaluation de valeur par défaut
     private ValueEvalMethod valueEvalMethod = ValueEvalMethod.SUPPORT;
 
+    // Affichage des calculs de valeur pertinente (débogage du modèle propriétaire)
+    private boolean debugEnabled = false;
+
+    /**
+     * Active l'affichage des calculs de valeur pertinente
+     * @param enable true pour afficher (voir ModelContext.isDebugEnabled)
+     */
+    public void setDebugEnabled(boolean enable) {
+        this.debugEnabled = enable;
+    }
+
     /**
      * Définir la méthode d'évaluation de valeur à utiliser
      * @param method La méthode d'évaluation (ENTROPY ou SUPPORT)
@@ -308,8 +459,9 @@ public class ClosureOperator implements Serializable {
 
         // Evaluate each attribute
         for (int attIndex = 0; attIndex < firstInstance.numAttributes(); attIndex++) {
-            // Ignore the class attribute or non-nominal attributes
-            if (attIndex == firstInstance.classIndex() || !firstInstance.attribute(attIndex).isNominal()) {
+            // Ignore the class attribute, non-nominal attributes and pruned attributes
+            if (attIndex == firstInstance.classIndex() || !firstInstance.attribute(attIndex).isNominal()
+                    || !context.isAttributeActive(firstInstance.attribute(attIndex).name())) {
                 continue;
             }
 
@@ -739,12 +891,48 @@ public class ClosureOperator implements Serializable {
      * Le résultat est le plus petit ensemble d'instances qui contient l'ensemble initial et
      * qui est fermé par rapport aux attributs communs.
      *
+     * En mode φ approximatif non vérifié, un couple accepté à tort ne peut que réduire la fermeture :
+     * l'extension n'est alors plus reconnue comme fermée par les générateurs.
+     *
      * @param instanceIndices L'ensemble d'indices d'instances initial
      * @return L'ensemble fermé d'indices d'instances
      */
     public Set<Integer> galoisClosure(Set<Integer> instanceIndices) {
+        return closure(instanceIndices).getExtent();
+    }
+
+    /**
+     * Fermeture de Galois accompagnée de l'intention qui l'a produite : en mode φ approximatif, le
+     * concept doit porter l'intention échantillonnée ayant servi à fermer l'extension, sans second tirage.
+     */
+    public static class Closure {
+        private final Set<Integer> extent;
+        private final PhiResult phi;
+
+        public Closure(Set<Integer> extent, PhiResult phi) {
+            this.extent = extent;
+            this.phi = phi;
+        }
+
+        public Set<Integer> getExtent() {
+            return extent;
+        }
+
+        public PhiResult getPhi() {
+            return phi;
+        }
+    }
+
+    /**
+     * Fermeture de Galois (voir galoisClosure) conservant le résultat de φ.
+     *
+     * @param instanceIndices L'ensemble d'indices d'instances initial
+     * @return L'ensemble fermé et l'intention calculée sur l'ensemble initial
+     */
+    public Closure closure(Set<Integer> instanceIndices) {
         // Calculer l'intention (les attributs-valeurs communs)
-        Set<Map.Entry<String, String>> intent = phi(instanceIndices);
+        PhiResult phi = phiWithConfidence(instanceIndices);
+        Set<Map.Entry<String, String>> intent = phi.getIntent();
 
         // Si aucun attribut commun, retourner l'ensemble de toutes les instances
         if (intent.isEmpty()) {
@@ -752,7 +940,7 @@ public class ClosureOperator implements Serializable {
             for (int i = 0; i < context.getNumInstances(); i++) {
                 allInstances.add(i);
             }
-            return allInstances;
+            return new Closure(allInstances, phi);
         }
 
         // Calculer l'extension (les instances qui partagent ces attributs-valeurs)
@@ -770,6 +958,6 @@ public class ClosureOperator implements Serializable {
             }
         }
 
-        return closedExtent;
+        return new Closure(closedExtent, phi);
     }
 }
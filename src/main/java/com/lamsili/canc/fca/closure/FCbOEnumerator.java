@@ -0,0 +1,329 @@
+package com.lamsili.canc.fca.closure;
+
+import com.lamsili.canc.fca.concept.FormalConcept;
+import com.lamsili.canc.fca.concept.IntentCodec;
+import com.lamsili.canc.fca.concept.SupportFilter;
+import com.lamsili.canc.fca.context.NominalContext;
+import com.yahoo.labs.samoa.instances.Attribute;
+import com.yahoo.labs.samoa.instances.Instance;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Énumère tous les concepts formels du contexte nominal avec l'algorithme FCbO
+ * (Fast Close-by-One, Outrata &amp; Vychodil) : chaque concept est produit une seule fois grâce
+ * au test de canonicité, et les tests déjà échoués sont hérités par les sous-arbres.
+ *
+ * Le contexte est lu sous forme de bitmaps : l'extension de chaque couple attribut-valeur actif est
+ * la liste inversée BitSet du NominalContext, partagée sans copie et seulement lue par les workers
+ * (le contexte ne doit pas être modifié pendant l'énumération). Les premiers niveaux de l'arbre
+ * de recherche sont répartis entre des tâches fork-join.
+ *
+ * Un SupportFilter optionnel élague les sous-arbres dont l'extension passe sous le support
+ * minimal ou sous le k-ième meilleur support (iceberg / top-k) : ces concepts ne sont jamais calculés.
+ *
+ * L'énumération s'arrête dès que le nombre maximal de concepts ou la limite de temps est atteint.
+ * En parallèle, le sous-ensemble conservé lorsque la limite est atteinte peut varier d'une
+ * exécution à l'autre ; l'ordre de la liste retournée est en revanche déterministe.
+ */
+public class FCbOEnumerator {
+
+    // Profondeur jusqu'à laquelle les sous-arbres sont confiés à des tâches distinctes
+    private static final int SPLIT_DEPTH = 3;
+
+    private final NominalContext context;
+    private final IntentCodec codec;
+    private final int maxConcepts;
+    private final long timeLimitMillis;
+    private final int parallelism;
+    private SupportFilter supportFilter;
+
+    // Contexte bitmap : couple j = (attributeNames[j], values[j]), extension extents[j] (bitmap du contexte, en lecture seule)
+    private String[] attributeNames;
+    private String[] values;
+    private BitSet[] extents;
+    private int numObjects;
+
+    private final AtomicInteger produced = new AtomicInteger();
+    private volatile boolean truncated;
+    private long deadline;
+    private ConcurrentLinkedQueue<Node> output;
+
+    /**
+     * @param context Le contexte nominal à énumérer
+     * @param codec Dictionnaire des couples du modèle, pour les intentions des concepts produits
+     * @param maxConcepts Nombre maximal de concepts produits (0 = illimité)
+     * @param timeLimitMillis Durée maximale de l'énumération en millisecondes (0 = illimitée)
+     * @param parallelism Nombre de workers fork-join (0 = pool commun, 1 = séquentiel)
+     */
+    public FCbOEnumerator(NominalContext context, IntentCodec codec, int maxConcepts, long timeLimitMillis,
+                          int parallelism) {
+        this.context = context;
+        this.codec = codec;
+        this.maxConcepts = maxConcepts;
+        this.timeLimitMillis = timeLimitMillis;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * @param supportFilter Borne de support appliquée pendant l'énumération (null = aucune)
+     */
+    public void setSupportFilter(SupportFilter supportFilter) {
+        this.supportFilter = supportFilter;
+    }
+
+    /**
+     * Énumère les concepts d'extension et d'intention non vides.
+     * Le concept sommet sans intention est écarté : il produirait une règle sans condition.
+     *
+     * @return Les concepts triés par taille d'extension décroissante puis par intention
+     */
+    public List<FormalConcept> enumerate() {
+        produced.set(0);
+        truncated = false;
+        output = new ConcurrentLinkedQueue<>();
+        deadline = timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1_000_000L : Long.MAX_VALUE;
+
+        buildBitmapContext();
+        if (numObjects == 0) {
+            return new ArrayList<>();
+        }
+
+        BitSet allObjects = new BitSet(numObjects);
+        allObjects.set(0, numObjects);
+        Node root = new Node(allObjects, closeIntent(allObjects));
+        BitSet[] noFailures = new BitSet[extents.length];
+
+        GenerateTask rootTask = new GenerateTask(root, 0, noFailures, 0);
+        if (parallelism == 1) {
+            rootTask.compute();
+        } else if (parallelism <= 0) {
+            ForkJoinPool.commonPool().invoke(rootTask);
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(rootTask);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        List<Node> nodes = new ArrayList<>(output);
+        nodes.sort((a, b) -> {
+            int bySize = Integer.compare(b.extent.cardinality(), a.extent.cardinality());
+            return bySize != 0 ? bySize : compareBits(a.intent, b.intent);
+        });
+
+        List<FormalConcept> concepts = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            concepts.add(toFormalConcept(node));
+        }
+        // Le seuil top-k a pu monter après l'émission des premiers concepts
+        return supportFilter != null ? supportFilter.select(concepts) : concepts;
+    }
+
+    /**
+     * @return true si la dernière énumération a été interrompue par une limite
+     */
+    public boolean wasTruncated() {
+        return truncated;
+    }
+
+    /**
+     * @return Le nombre de concepts produits par la dernière énumération
+     */
+    public int getProducedCount() {
+        return Math.min(produced.get(), maxConcepts > 0 ? maxConcepts : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Relève le bitmap de chaque couple attribut-valeur des attributs nominaux actifs,
+     * dans l'ordre du jeu de données puis de déclaration des valeurs.
+     */
+    private void buildBitmapContext() {
+        numObjects = context.getNumInstances();
+        List<String> names = new ArrayList<>();
+        List<String> vals = new ArrayList<>();
+        List<BitSet> bits = new ArrayList<>();
+
+        if (numObjects > 0) {
+            Instance first = context.getInstance(0);
+            for (int a = 0; a < first.numAttributes(); a++) {
+                Attribute attribute = first.attribute(a);
+                if (a == first.classIndex() || !attribute.isNominal() || !context.isAttributeActive(attribute.name())) {
+                    continue;
+                }
+                for (int v = 0; v < attribute.numValues(); v++) {
+                    BitSet extent = context.postingBitmap(attribute.name(), attribute.value(v));
+                    if (extent == null || extent.isEmpty()) continue;
+                    names.add(attribute.name());
+                    vals.add(attribute.value(v));
+                    bits.add(extent);
+                }
+            }
+        }
+
+        attributeNames = names.toArray(new String[0]);
+        values = vals.toArray(new String[0]);
+        extents = bits.toArray(new BitSet[0]);
+    }
+
+    /**
+     * Opérateur ↑ sur le contexte bitmap : couples partagés par tous les objets de l'extension.
+     */
+    private BitSet closeIntent(BitSet extent) {
+        BitSet intent = new BitSet(extents.length);
+        if (extent.isEmpty()) {
+            intent.set(0, extents.length);
+            return intent;
+        }
+        BitSet remaining = new BitSet();
+        for (int j = 0; j < extents.length; j++) {
+            remaining.clear();
+            remaining.or(extent);
+            remaining.andNot(extents[j]);
+            if (remaining.isEmpty()) {
+                intent.set(j);
+            }
+        }
+        return intent;
+    }
+
+    /**
+     * @return true si les deux ensembles coïncident sur les couples d'indice strictement inférieur à j
+     */
+    private static boolean equalsBelow(BitSet a, BitSet b, int j) {
+        return a.get(0, j).equals(b.get(0, j));
+    }
+
+    /**
+     * @return true si a ∩ [0, j) ⊆ b ∩ [0, j)
+     */
+    private static boolean subsetBelow(BitSet a, BitSet b, int j) {
+        BitSet diff = a.get(0, j);
+        diff.andNot(b);
+        return diff.isEmpty();
+    }
+
+    private static int compareBits(BitSet a, BitSet b) {
+        int i = a.nextSetBit(0);
+        int k = b.nextSetBit(0);
+        while (i >= 0 && k >= 0) {
+            if (i != k) return Integer.compare(i, k);
+            i = a.nextSetBit(i + 1);
+            k = b.nextSetBit(k + 1);
+        }
+        return Integer.compare(i >= 0 ? 1 : 0, k >= 0 ? 1 : 0);
+    }
+
+    private boolean limitReached() {
+        if (truncated) return true;
+        if ((maxConcepts > 0 && produced.get() >= maxConcepts) || System.nanoTime() > deadline) {
+            truncated = true;
+        }
+        return truncated;
+    }
+
+    private void emit(Node node) {
+        if (node.extent.isEmpty() || node.intent.isEmpty()) return;
+        if (maxConcepts > 0 && produced.incrementAndGet() > maxConcepts) {
+            truncated = true;
+            return;
+        }
+        if (maxConcepts <= 0) produced.incrementAndGet();
+        if (supportFilter != null) supportFilter.offer(node.extent.cardinality());
+        output.add(node);
+    }
+
+    private FormalConcept toFormalConcept(Node node) {
+        // BitSet.stream() parcourt les indices dans l'ordre croissant : extension déjà triée
+        int[] extent = node.extent.stream().toArray();
+        Set<Map.Entry<String, String>> intent = new HashSet<>();
+        for (int j = node.intent.nextSetBit(0); j >= 0; j = node.intent.nextSetBit(j + 1)) {
+            intent.add(new AbstractMap.SimpleImmutableEntry<>(attributeNames[j], values[j]));
+        }
+        return new FormalConcept(codec, extent, intent, true);
+    }
+
+    /**
+     * Couple (extension, intention) sous forme de bitmaps.
+     */
+    private static final class Node {
+        final BitSet extent;
+        final BitSet intent;
+
+        Node(BitSet extent, BitSet intent) {
+            this.extent = extent;
+            this.intent = intent;
+        }
+    }
+
+    /**
+     * Étape FCbO : produit le concept courant, calcule ses descendants canoniques à partir du
+     * couple y, puis les explore (en parallèle jusqu'à SPLIT_DEPTH).
+     */
+    private final class GenerateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Node node;
+        private final int y;
+        // failures[j] : intention ayant fait échouer le test de canonicité pour j (héritée du parent)
+        private final BitSet[] failures;
+        private final int depth;
+
+        GenerateTask(Node node, int y, BitSet[] failures, int depth) {
+            this.node = node;
+            this.y = y;
+            this.failures = failures;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            emit(node);
+            if (limitReached()) return;
+
+            BitSet[] childFailures = failures.clone();
+            List<Node> children = new ArrayList<>();
+            List<Integer> starts = new ArrayList<>();
+
+            for (int j = y; j < extents.length; j++) {
+                if (node.intent.get(j)) continue;
+                // Test hérité : un échec antérieur pour j reste valable si sa partie < j est incluse dans B
+                if (failures[j] != null && !subsetBelow(failures[j], node.intent, j)) continue;
+
+                BitSet childExtent = (BitSet) node.extent.clone();
+                childExtent.and(extents[j]);
+                // Élagage anti-monotone : aucun descendant ne peut dépasser ce support
+                if (supportFilter != null && !supportFilter.admits(childExtent.cardinality())) continue;
+                BitSet childIntent = closeIntent(childExtent);
+
+                if (equalsBelow(node.intent, childIntent, j)) {
+                    children.add(new Node(childExtent, childIntent));
+                    starts.add(j + 1);
+                } else {
+                    childFailures[j] = childIntent;
+                }
+            }
+
+            if (children.isEmpty() || limitReached()) return;
+
+            if (depth < SPLIT_DEPTH && parallelism != 1 && children.size() > 1) {
+                List<GenerateTask> tasks = new ArrayList<>(children.size());
+                for (int c = 0; c < children.size(); c++) {
+                    tasks.add(new GenerateTask(children.get(c), starts.get(c), childFailures, depth + 1));
+                }
+                invokeAll(tasks);
+            } else {
+                for (int c = 0; c < children.size(); c++) {
+                    if (limitReached()) return;
+                    new GenerateTask(children.get(c), starts.get(c), childFailures, depth + 1).compute();
+                }
+            }
+        }
+    }
+}
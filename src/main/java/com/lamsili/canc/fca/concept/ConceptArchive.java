@@ -0,0 +1,115 @@
+package com.lamsili.canc.fca.concept;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tier froid de l'historique des concepts : fichier local en ajout seul, un enregistrement binaire
+ * compact par concept rétrogradé (longueur puis FormalConcept.writeCompact). L'adresse d'un
+ * enregistrement (son décalage dans le fichier) sert de référence au concept froid.
+ *
+ * Un concept promu puis à nouveau rétrogradé est réécrit à la fin du fichier : l'ancien enregistrement
+ * reste dans l'historique.
+ */
+public class ConceptArchive implements Serializable, Closeable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 1L;
+
+    private final String path;
+    // Dictionnaire des couples du modèle, dans lequel les intentions relues sont encodées
+    private final IntentCodec codec;
+    private transient RandomAccessFile file;
+    private int records;
+
+    /**
+     * @param path Chemin du fichier d'archive (créé s'il n'existe pas, complété sinon)
+     * @param codec Dictionnaire des couples du modèle
+     */
+    public ConceptArchive(String path, IntentCodec codec) {
+        this.path = path;
+        this.codec = codec;
+    }
+
+    /**
+     * Crée une archive dans un fichier temporaire supprimé à l'arrêt de la JVM.
+     *
+     * @param codec Dictionnaire des couples du modèle
+     */
+    public static ConceptArchive temporary(IntentCodec codec) throws IOException {
+        File temp = File.createTempFile("canc-concepts", ".bin");
+        temp.deleteOnExit();
+        return new ConceptArchive(temp.getPath(), codec);
+    }
+
+    /**
+     * Ajoute un concept à la fin de l'archive.
+     *
+     * @return L'adresse de l'enregistrement
+     */
+    public synchronized long append(FormalConcept concept) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            concept.writeCompact(out);
+        }
+        RandomAccessFile raf = file();
+        long address = raf.length();
+        raf.seek(address);
+        raf.writeInt(bytes.size());
+        raf.write(bytes.toByteArray());
+        records++;
+        return address;
+    }
+
+    /**
+     * Relit le concept enregistré à une adresse.
+     */
+    public synchronized FormalConcept read(long address) throws IOException {
+        RandomAccessFile raf = file();
+        raf.seek(address);
+        byte[] record = new byte[raf.readInt()];
+        raf.readFully(record);
+        return FormalConcept.readCompact(new DataInputStream(new ByteArrayInputStream(record)), codec);
+    }
+
+    /**
+     * Relit tout l'historique, dans l'ordre d'écriture (audit, redémarrage à chaud).
+     */
+    public synchronized List<FormalConcept> readAll() throws IOException {
+        List<FormalConcept> concepts = new ArrayList<>();
+        RandomAccessFile raf = file();
+        long address = 0;
+        while (address < raf.length()) {
+            concepts.add(read(address));
+            address = raf.getFilePointer();
+        }
+        return concepts;
+    }
+
+    /**
+     * @return Nombre d'enregistrements écrits par cette instance
+     */
+    public int getRecordCount() {
+        return records;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (file != null) {
+            file.close();
+            file = null;
+        }
+    }
+
+    // Ouverture paresseuse : le descripteur n'est pas sérialisé avec le modèle
+    private RandomAccessFile file() throws IOException {
+        if (file == null) {
+            file = new RandomAccessFile(path, "rw");
+        }
+        return file;
+    }
+}
@@ -0,0 +1,414 @@
+package com.lamsili.canc.fca.concept;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Index inversé des concepts : pour chaque couple attribut-valeur (code du dictionnaire du modèle), la liste
+ * des identifiants des concepts dont l'intention contient ce couple.
+ *
+ * La recherche des concepts satisfaits par une instance procède par comptage : chaque couple de
+ * l'instance incrémente le compteur des concepts de sa liste, et un concept est satisfait lorsque
+ * son compteur atteint la taille de son intention. Seuls les concepts partageant au moins un couple
+ * avec l'instance sont touchés, quel que soit le nombre total de concepts.
+ *
+ * L'index couvre aussi le tier froid de l'historique : un concept rétrogradé (voir ConceptArchive)
+ * garde ses listes inversées mais n'est plus référencé que par son adresse dans l'archive.
+ * satisfiedBy ne retourne que les concepts chauds, coldSatisfiedBy les identifiants des concepts froids.
+ *
+ * Mémoire restant sur le tas pour un concept froid : son identifiant dans les listes inversées de ses
+ * couples (un int par couple), sa taille d'intention (un int) et son adresse (un long), dans des
+ * tableaux plats indexés par identifiant. L'intention, l'extension et les statistiques ne vivent que
+ * dans l'archive.
+ *
+ * Les identifiants libérés (retrait, oubli d'un concept froid) sont réattribués aux ajouts suivants :
+ * les tableaux par identifiant et le tableau de comptage restent bornés par le nombre maximal de
+ * concepts indexés simultanément. Un numéro d'ajout par identifiant conserve l'ordre d'ajout.
+ */
+public class ConceptIndex implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 5L;
+
+    // Adresse d'un identifiant hors du tier froid
+    private static final long NOT_COLD = -1L;
+
+    // Dictionnaire des couples du modèle, partagé avec ses concepts
+    private final IntentCodec codec;
+
+    // Identifiants internes (null = emplacement libre ou concept froid)
+    private final List<FormalConcept> concepts = new ArrayList<>();
+    private final IdentityHashMap<FormalConcept, List<Integer>> idsByConcept = new IdentityHashMap<>();
+    // Listes inversées indexées par code de couple, reconstruites à la désérialisation
+    private transient Map<Integer, Posting> postings = new HashMap<>();
+    // Concepts d'intention vide : satisfaits par toute instance
+    private final List<Integer> emptyIntentIds = new ArrayList<>();
+    // Par identifiant : taille d'intention (chaud ou froid), adresse dans l'archive (NOT_COLD sinon)
+    // et numéro d'ajout
+    private int[] intentSizes = new int[16];
+    private long[] coldHandles = new long[16];
+    private long[] sequences = new long[16];
+    private long nextSequence;
+    // Pile des identifiants libres
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int size;
+    private int coldSize;
+
+    private transient int[] counts = new int[0];
+
+    /**
+     * @param codec Dictionnaire des couples du modèle
+     */
+    public ConceptIndex(IntentCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Liste d'identifiants extensible sans boxing.
+     */
+    private static final class Posting {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        void removeIf(java.util.function.IntPredicate filter) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (!filter.test(ids[i])) ids[kept++] = ids[i];
+            }
+            size = kept;
+        }
+    }
+
+    /**
+     * Indexe un concept (un même objet ajouté deux fois reçoit deux identifiants, comme dans une liste).
+     */
+    public void add(FormalConcept concept) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+            concepts.set(id, concept);
+        } else {
+            id = concepts.size();
+            concepts.add(concept);
+            ensureSlot(id);
+        }
+        intentSizes[id] = concept.getIntentSize();
+        coldHandles[id] = NOT_COLD;
+        sequences[id] = nextSequence++;
+        idsByConcept.computeIfAbsent(concept, c -> new ArrayList<>()).add(id);
+        index(id, concept.intentCodes());
+        size++;
+    }
+
+    public void addAll(Collection<FormalConcept> toAdd) {
+        for (FormalConcept concept : toAdd) {
+            add(concept);
+        }
+    }
+
+    /**
+     * Retire un concept de l'index (toutes ses occurrences).
+     *
+     * @return true si le concept était indexé
+     */
+    public boolean remove(FormalConcept concept) {
+        List<Integer> ids = idsByConcept.remove(concept);
+        if (ids == null) return false;
+        int[] codes = concept.intentCodes();
+        for (int id : ids) {
+            unindex(id, codes);
+            concepts.set(id, null);
+            release(id);
+            size--;
+        }
+        return true;
+    }
+
+    /**
+     * Passe un concept chaud dans le tier froid : ses listes inversées sont conservées et il n'est plus
+     * référencé que par son adresse dans l'archive.
+     *
+     * @param concept Concept rétrogradé
+     * @param handle Adresse de son enregistrement dans l'archive
+     * @return true si le concept était indexé
+     */
+    public boolean demote(FormalConcept concept, long handle) {
+        List<Integer> ids = idsByConcept.remove(concept);
+        if (ids == null) return false;
+        for (int id : ids) {
+            concepts.set(id, null);
+            coldHandles[id] = handle;
+            size--;
+            coldSize++;
+        }
+        return true;
+    }
+
+    /**
+     * @return Adresse dans l'archive du concept froid d'identifiant id
+     */
+    public long coldHandle(int id) {
+        return coldHandles[id];
+    }
+
+    /**
+     * Ramène un concept froid dans le tier chaud, sous son identifiant d'origine.
+     *
+     * @param id Identifiant du concept froid
+     * @param concept Concept relu depuis l'archive
+     * @return true si l'identifiant désignait un concept froid
+     */
+    public boolean promote(int id, FormalConcept concept) {
+        if (!isCold(id)) return false;
+        coldHandles[id] = NOT_COLD;
+        coldSize--;
+        concepts.set(id, concept);
+        idsByConcept.computeIfAbsent(concept, c -> new ArrayList<>()).add(id);
+        size++;
+        return true;
+    }
+
+    /**
+     * Oublie un concept froid (enregistrement illisible ou intention déjà présente dans le tier chaud).
+     *
+     * @param id Identifiant du concept froid
+     * @param archived Concept relu depuis l'archive, ou null s'il est illisible (ses listes sont alors
+     *                 retrouvées par un parcours de tout l'index)
+     * @return true si l'identifiant désignait un concept froid
+     */
+    public boolean discardCold(int id, FormalConcept archived) {
+        if (!isCold(id)) return false;
+        if (archived != null) {
+            unindex(id, archived.intentCodes());
+        } else {
+            emptyIntentIds.remove(Integer.valueOf(id));
+            for (Posting posting : postings.values()) {
+                posting.remove(id);
+            }
+        }
+        coldHandles[id] = NOT_COLD;
+        coldSize--;
+        release(id);
+        return true;
+    }
+
+    /**
+     * Oublie tout le tier froid (archive fermée ou remplacée).
+     */
+    public void clearCold() {
+        if (coldSize == 0) return;
+        emptyIntentIds.removeIf(this::isCold);
+        for (Posting posting : postings.values()) {
+            posting.removeIf(this::isCold);
+        }
+        for (int id = 0; id < concepts.size(); id++) {
+            if (coldHandles[id] != NOT_COLD) {
+                coldHandles[id] = NOT_COLD;
+                release(id);
+            }
+        }
+        coldSize = 0;
+    }
+
+    /**
+     * @return true si l'identifiant désigne un concept du tier froid
+     */
+    public boolean isCold(int id) {
+        return id < concepts.size() && coldHandles[id] != NOT_COLD;
+    }
+
+    /**
+     * Vide l'index.
+     */
+    public void clear() {
+        concepts.clear();
+        idsByConcept.clear();
+        postings.clear();
+        emptyIntentIds.clear();
+        freeCount = 0;
+        size = 0;
+        coldSize = 0;
+    }
+
+    /**
+     * @return Nombre de concepts indexés dans le tier chaud
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Nombre de concepts du tier froid
+     */
+    public int coldSize() {
+        return coldSize;
+    }
+
+    /**
+     * Retourne les concepts dont toute l'intention est satisfaite par l'instance,
+     * dans l'ordre d'ajout à l'index.
+     *
+     * @param instance L'instance (attributs nominaux hors classe)
+     * @return Les concepts satisfaits
+     */
+    public List<FormalConcept> satisfiedBy(Instance instance) {
+        List<FormalConcept> result = new ArrayList<>();
+        for (int id : satisfiedIds(instance)) {
+            FormalConcept concept = concepts.get(id);
+            if (concept != null) result.add(concept);
+        }
+        return result;
+    }
+
+    /**
+     * Retourne les identifiants des concepts froids dont l'intention est satisfaite par l'instance.
+     *
+     * @param instance L'instance (attributs nominaux hors classe)
+     * @return Les identifiants (adresses via coldHandle), dans l'ordre d'ajout à l'index
+     */
+    public int[] coldSatisfiedBy(Instance instance) {
+        if (coldSize == 0) return new int[0];
+        List<Integer> satisfied = satisfiedIds(instance);
+        int[] result = new int[satisfied.size()];
+        int n = 0;
+        for (int id : satisfied) {
+            if (coldHandles[id] != NOT_COLD) result[n++] = id;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    /**
+     * Identifiants (chauds et froids) dont l'intention est satisfaite, dans l'ordre d'ajout.
+     */
+    private List<Integer> satisfiedIds(Instance instance) {
+        if (counts.length < concepts.size()) {
+            counts = new int[Math.max(concepts.size(), counts.length * 2)];
+        }
+
+        List<Integer> touched = new ArrayList<>();
+        for (int a = 0; a < instance.numAttributes(); a++) {
+            if (a == instance.classIndex() || !instance.attribute(a).isNominal()) continue;
+            int code = codec.lookup(instance.attribute(a).name(),
+                    instance.attribute(a).value((int) instance.value(a)));
+            if (code < 0) continue;
+            Posting posting = postings.get(code);
+            if (posting == null) continue;
+            for (int i = 0; i < posting.size; i++) {
+                int id = posting.ids[i];
+                if (counts[id]++ == 0) touched.add(id);
+            }
+        }
+
+        List<Integer> satisfied = new ArrayList<>(emptyIntentIds);
+        for (int id : touched) {
+            if (counts[id] == intentSizes[id]) {
+                satisfied.add(id);
+            }
+            counts[id] = 0;
+        }
+        satisfied.sort((a, b) -> Long.compare(sequences[a], sequences[b]));
+        return satisfied;
+    }
+
+    private void ensureSlot(int id) {
+        if (id >= intentSizes.length) {
+            int capacity = Math.max(id + 1, intentSizes.length * 2);
+            intentSizes = Arrays.copyOf(intentSizes, capacity);
+            coldHandles = Arrays.copyOf(coldHandles, capacity);
+            sequences = Arrays.copyOf(sequences, capacity);
+        }
+    }
+
+    private void release(int id) {
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    private void index(int id, int[] codes) {
+        if (codes.length == 0) {
+            emptyIntentIds.add(id);
+            return;
+        }
+        for (int code : codes) {
+            postings.computeIfAbsent(code, c -> new Posting()).add(id);
+        }
+    }
+
+    private void unindex(int id, int[] codes) {
+        if (codes.length == 0) {
+            emptyIntentIds.remove(Integer.valueOf(id));
+        }
+        for (int code : codes) {
+            Posting posting = postings.get(code);
+            if (posting != null) posting.remove(id);
+        }
+    }
+
+    /**
+     * Les listes inversées ne sont pas sérialisées : les couples des concepts froids, relus dans
+     * leurs listes inversées, sont écrits en clair.
+     */
+    private void writeObject(java.io.ObjectOutputStream out) throws java.io.IOException {
+        out.defaultWriteObject();
+        int pairs = 0;
+        for (Posting posting : postings.values()) {
+            for (int i = 0; i < posting.size; i++) {
+                if (coldHandles[posting.ids[i]] != NOT_COLD) pairs++;
+            }
+        }
+        out.writeInt(pairs);
+        for (Map.Entry<Integer, Posting> entry : postings.entrySet()) {
+            Posting posting = entry.getValue();
+            for (int i = 0; i < posting.size; i++) {
+                if (coldHandles[posting.ids[i]] == NOT_COLD) continue;
+                Map.Entry<String, String> pair = codec.decode(entry.getKey());
+                out.writeInt(posting.ids[i]);
+                out.writeUTF(pair.getKey());
+                out.writeUTF(pair.getValue());
+            }
+        }
+    }
+
+    /**
+     * Les listes inversées sont reconstruites, les couples froids réencodés dans le dictionnaire du modèle.
+     */
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        postings = new HashMap<>();
+        counts = new int[0];
+        emptyIntentIds.clear();
+        for (int id = 0; id < concepts.size(); id++) {
+            FormalConcept concept = concepts.get(id);
+            if (concept != null) {
+                index(id, concept.intentCodes());
+            } else if (coldHandles[id] != NOT_COLD && intentSizes[id] == 0) {
+                emptyIntentIds.add(id);
+            }
+        }
+        int pairs = in.readInt();
+        for (int i = 0; i < pairs; i++) {
+            int id = in.readInt();
+            int code = codec.encode(in.readUTF(), in.readUTF());
+            postings.computeIfAbsent(code, c -> new Posting()).add(id);
+        }
+    }
+}
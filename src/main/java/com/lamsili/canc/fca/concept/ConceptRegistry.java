@@ -0,0 +1,109 @@
+package com.lamsili.canc.fca.concept;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Registre canonique des concepts, indexé par la signature de l'intention (codes IntentCodec triés).
+ * Un concept redécouvert lors d'une reconstruction n'est pas dupliqué : son extension est fusionnée
+ * dans celle du concept déjà enregistré, qui est retourné à sa place.
+ */
+public class ConceptRegistry implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 1L;
+
+    // Nombre de découvertes par concept canonique
+    private final IdentityHashMap<FormalConcept, Integer> discoveries = new IdentityHashMap<>();
+    // Les codes de couples sont propres à la JVM : l'index par signature est reconstruit à la lecture
+    private transient Map<Signature, FormalConcept> bySignature = new HashMap<>();
+
+    /**
+     * Signature d'une intention : codes de couples triés.
+     */
+    private static final class Signature {
+        final int[] codes;
+        final int hash;
+
+        Signature(int[] codes) {
+            this.codes = codes;
+            this.hash = Arrays.hashCode(codes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Signature && Arrays.equals(codes, ((Signature) o).codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Retourne le concept canonique de même intention. Si le concept est nouveau, il est enregistré
+     * et retourné tel quel ; sinon son extension est fusionnée dans le concept existant.
+     *
+     * @param concept Concept généré
+     * @return Le concept canonique (concept lui-même s'il n'était pas connu)
+     */
+    public FormalConcept intern(FormalConcept concept) {
+        Signature signature = new Signature(concept.intentCodes());
+        FormalConcept existing = bySignature.get(signature);
+        if (existing == null) {
+            bySignature.put(signature, concept);
+            discoveries.put(concept, 1);
+            return concept;
+        }
+        if (existing != concept) {
+            existing.absorb(concept);
+        }
+        discoveries.merge(existing, 1, Integer::sum);
+        return existing;
+    }
+
+    /**
+     * @return Le concept enregistré pour cette intention, ou null
+     */
+    public FormalConcept lookup(FormalConcept concept) {
+        return bySignature.get(new Signature(concept.intentCodes()));
+    }
+
+    /**
+     * Retire un concept du registre (éviction).
+     *
+     * @return true si le concept était le représentant canonique de son intention
+     */
+    public boolean remove(FormalConcept concept) {
+        if (discoveries.remove(concept) == null) return false;
+        bySignature.remove(new Signature(concept.intentCodes()));
+        return true;
+    }
+
+    /**
+     * @return Nombre de fois où le concept a été généré (0 s'il n'est pas enregistré)
+     */
+    public int getDiscoveryCount(FormalConcept concept) {
+        return discoveries.getOrDefault(concept, 0);
+    }
+
+    /**
+     * @return Nombre de concepts canoniques
+     */
+    public int size() {
+        return discoveries.size();
+    }
+
+    public void clear() {
+        discoveries.clear();
+        bySignature.clear();
+    }
+
+    private void readObject(java.io.ObjectInputStream in) throws java.io.IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        bySignature = new HashMap<>();
+        for (FormalConcept concept : discoveries.keySet()) {
+            bySignature.put(new Signature(concept.intentCodes()), concept);
+        }
+    }
+}
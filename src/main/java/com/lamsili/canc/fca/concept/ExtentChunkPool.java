@@ -0,0 +1,36 @@
+package com.lamsili.canc.fca.concept;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Pool faible des blocs canoniques des extensions partagées (voir SharedExtent) : un bloc n'y survit
+ * que s'il est référencé par une extension. Chaque modèle possède son pool (voir ModelContext), de
+ * sorte que des learners qui apprennent en parallèle ne se disputent pas un verrou commun et ne
+ * retiennent pas les blocs les uns des autres.
+ */
+public final class ExtentChunkPool {
+
+    private final Map<SharedExtent.Chunk, WeakReference<SharedExtent.Chunk>> chunks = new WeakHashMap<>();
+
+    /**
+     * @return Le bloc canonique égal à chunk (chunk lui-même s'il est nouveau)
+     */
+    synchronized SharedExtent.Chunk intern(SharedExtent.Chunk chunk) {
+        WeakReference<SharedExtent.Chunk> ref = chunks.get(chunk);
+        SharedExtent.Chunk canonical = ref != null ? ref.get() : null;
+        if (canonical != null) {
+            return canonical;
+        }
+        chunks.put(chunk, new WeakReference<>(chunk));
+        return chunk;
+    }
+
+    /**
+     * @return Nombre de blocs distincts actuellement dans le pool (diagnostic)
+     */
+    public synchronized int size() {
+        return chunks.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.lamsili.canc.fca.concept;
+
+/**
+ * Empreinte de 128 bits d'une extension : somme, sur deux mots de 64 bits indépendants, d'un mélange
+ * de chaque indice d'instance. La somme ne dépend pas de l'ordre ; la calculer coûte O(|extension|).
+ */
+public final class ExtentFingerprint {
+
+    private static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+    private static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+    private long high;
+    private long low;
+
+    /**
+     * @return L'empreinte d'un ensemble d'indices
+     */
+    public static ExtentFingerprint of(Iterable<Integer> extent) {
+        ExtentFingerprint fingerprint = new ExtentFingerprint();
+        for (int index : extent) {
+            fingerprint.add(index);
+        }
+        return fingerprint;
+    }
+
+    private void add(int index) {
+        high += mix(index, SEED_HIGH);
+        low += mix(index, SEED_LOW);
+    }
+
+    public long high() {
+        return high;
+    }
+
+    public long low() {
+        return low;
+    }
+
+    // Finaliseur de SplitMix64
+    private static long mix(int index, long seed) {
+        long z = (index + 1L) * seed;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,95 @@
+package com.lamsili.canc.fca.concept;
+
+import java.util.function.IntPredicate;
+
+/**
+ * Ensemble d'empreintes d'extensions en adressage ouvert sur des tableaux de long : aucune
+ * extension n'est retenue ni hachée en entier. Chaque empreinte porte un entier (typiquement
+ * la position du concept généré) qui permet une comparaison complète uniquement en cas de
+ * collision d'empreintes.
+ */
+public class ExtentFingerprintSet {
+
+    private long[] highs;
+    private long[] lows;
+    private int[] payloads;
+    private boolean[] used;
+    private int size;
+
+    public ExtentFingerprintSet() {
+        this(16);
+    }
+
+    /**
+     * @param expected Nombre d'empreintes attendu
+     */
+    public ExtentFingerprintSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(16, expected * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Ajoute l'empreinte si aucune extension identique n'est déjà présente.
+     *
+     * @param fingerprint Empreinte de l'extension candidate
+     * @param payload Entier associé à l'extension candidate
+     * @param sameExtent Comparaison complète avec l'extension d'un payload de même empreinte
+     * @return true si l'empreinte a été ajoutée, false si l'extension est un doublon
+     */
+    public boolean addIfAbsent(ExtentFingerprint fingerprint, int payload, IntPredicate sameExtent) {
+        long high = fingerprint.high();
+        long low = fingerprint.low();
+        int mask = used.length - 1;
+        int slot = slotOf(high, low) & mask;
+        while (used[slot]) {
+            if (highs[slot] == high && lows[slot] == low && sameExtent.test(payloads[slot])) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        highs[slot] = high;
+        lows[slot] = low;
+        payloads[slot] = payload;
+        used[slot] = true;
+        if (++size * 2 > used.length) {
+            grow();
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int slotOf(long high, long low) {
+        long h = high ^ Long.rotateLeft(low, 32);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        highs = new long[capacity];
+        lows = new long[capacity];
+        payloads = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void grow() {
+        long[] oldHighs = highs;
+        long[] oldLows = lows;
+        int[] oldPayloads = payloads;
+        boolean[] oldUsed = used;
+        allocate(oldUsed.length * 2);
+        int mask = used.length - 1;
+        for (int i = 0; i < oldUsed.length; i++) {
+            if (!oldUsed[i]) continue;
+            int slot = slotOf(oldHighs[i], oldLows[i]) & mask;
+            while (used[slot]) {
+                slot = (slot + 1) & mask;
+            }
+            highs[slot] = oldHighs[i];
+            lows[slot] = oldLows[i];
+            payloads[slot] = oldPayloads[i];
+            used[slot] = true;
+        }
+    }
+}
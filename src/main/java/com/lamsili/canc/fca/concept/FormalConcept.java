@@ -1,8 +1,17 @@
 package com.lamsili.canc.fca.concept;
 
-import java.util.HashSet;
+import com.lamsili.canc.fca.context.NominalContext;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.Objects;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.io.Serializable;
 
@@ -11,23 +20,124 @@ import java.io.Serializable;
  * A formal concept is defined by a pair (extent, intent) where
  * extent is a set of instance indices and intent is a set of
  * attribute-value pairs common to these instances.
+ *
+ * Compact representation: the extent is a sorted int[] and the intent a sorted int[]
+ * of pair codes from the model's dictionary (see IntentCodec). getExtent() and getIntent() return
+ * read-only views backed by these arrays, without copying.
+ *
+ * Extent-free mode: after retainStatisticsOnly(), the extent is replaced by its sufficient
+ * statistics (per-class counts, size and total weight), so memory is O(classes) instead of O(extent).
+ * Instances are then added with addInstance() and the extent view is empty.
+ *
+ * Class histogram: classHistogram() gives the per-class counts in both modes. With an extent, the
+ * histogram is counted once from the context and then maintained by addInstance(), so the majority
+ * class of a growing concept costs O(classes) rather than O(extent) per added instance.
+ *
+ * Shared mode: after shareExtent(pool), the extent is a chunked bitmap whose immutable chunks are
+ * pooled across the concepts of one model (see SharedExtent, ExtentChunkPool), so overlapping extents
+ * share storage.
  */
 public class FormalConcept implements Serializable {
     // Ajouter un serialVersionUID pour la stabilité de la sérialisation
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 5L;
+
+    private static final int[] EMPTY = new int[0];
+
+    // Indices d'instances triés ; seules les extentSize premières cases sont significatives
+    private transient int[] extent;
+    private transient int extentSize;
+    // Dictionnaire des couples du modèle et codes des couples de l'intention, triés
+    private final IntentCodec codec;
+    private transient int[] intent;
+    // false si l'intention provient d'un φ échantillonné non vérifié
+    private final boolean exact;
+
+    // Mode sans extension : effectifs par classe (null si l'extension est conservée), poids total
+    // et plus grand index couvert (les instances arrivent par index croissant)
+    private transient int[] classCounts;
+    private transient double extentWeight;
+    private transient int highestIndex = -1;
 
-    private final Set<Integer> extent;
-    private final Set<Map.Entry<String, String>> intent;
+    // Mode avec extension : histogramme des classes de l'extension (null = à recompter), valide pour le
+    // contexte et le nombre de retraits de ce contexte au moment du comptage
+    private transient int[] extentClassCounts;
+    private transient NominalContext histogramContext;
+    private transient long histogramEvictions;
+
+    // Mode partagé : extension en blocs canonisés (null si l'extension est un tableau trié)
+    private transient SharedExtent shared;
+
+    // Hash de l'intention (immuable) et du concept (invalidé quand l'extension change)
+    private transient int intentHash;
+    private transient int hash;
 
     /**
      * Constructor for a formal concept
      *
+     * @param codec pair dictionary of the owning model
+     * @param extent set of instance indices (I)
+     * @param intent set of attribute-value pairs (A,V)
+     */
+    public FormalConcept(IntentCodec codec, Set<Integer> extent, Set<Map.Entry<String, String>> intent) {
+        this(codec, extent, intent, true);
+    }
+
+    /**
+     * Constructor for a formal concept whose intent may be approximate
+     *
+     * @param codec pair dictionary of the owning model
      * @param extent set of instance indices (I)
      * @param intent set of attribute-value pairs (A,V)
+     * @param exact false if the intent comes from an unverified sampled φ
      */
-    public FormalConcept(Set<Integer> extent, Set<Map.Entry<String, String>> intent) {
-        this.extent = new HashSet<>(extent);
-        this.intent = new HashSet<>(intent);
+    public FormalConcept(IntentCodec codec, Set<Integer> extent, Set<Map.Entry<String, String>> intent, boolean exact) {
+        this(codec, toSortedArray(extent), intent, exact);
+    }
+
+    /**
+     * Constructor from an already sorted, duplicate-free extent (the array is kept as is)
+     *
+     * @param codec pair dictionary of the owning model
+     * @param sortedExtent sorted instance indices (I)
+     * @param intent set of attribute-value pairs (A,V)
+     * @param exact false if the intent comes from an unverified sampled φ
+     */
+    public FormalConcept(IntentCodec codec, int[] sortedExtent, Set<Map.Entry<String, String>> intent, boolean exact) {
+        this.codec = codec;
+        this.extent = sortedExtent;
+        this.extentSize = sortedExtent.length;
+        this.intent = encodeIntent(codec, intent);
+        this.exact = exact;
+        this.intentHash = computeIntentHash(codec, this.intent);
+    }
+
+    private static int[] toSortedArray(Set<Integer> values) {
+        int[] array = new int[values.size()];
+        int i = 0;
+        for (Integer value : values) {
+            array[i++] = value;
+        }
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static int[] encodeIntent(IntentCodec codec, Set<Map.Entry<String, String>> pairs) {
+        int[] codes = new int[pairs.size()];
+        int i = 0;
+        for (Map.Entry<String, String> pair : pairs) {
+            codes[i++] = codec.encode(pair.getKey(), pair.getValue());
+        }
+        Arrays.sort(codes);
+        return codes;
+    }
+
+    private static int computeIntentHash(IntentCodec codec, int[] codes) {
+        // Même valeur que Set.hashCode() sur les couples (somme des hash des Map.Entry)
+        int h = 0;
+        for (int code : codes) {
+            h += codec.decode(code).hashCode();
+        }
+        return h;
     }
 
     /**
@@ -38,7 +148,25 @@ public class FormalConcept implements Serializable {
      * @return true if the extent was modified, false otherwise
      */
     public boolean addToExtent(int instanceIndex) {
-        return this.extent.add(instanceIndex);
+        requireExtent();
+        if (shared != null) {
+            return shared.add(instanceIndex) && extentChanged(1);
+        }
+        int pos = Arrays.binarySearch(extent, 0, extentSize, instanceIndex);
+        if (pos >= 0) {
+            return false;
+        }
+        int insertAt = -pos - 1;
+        if (extentSize == extent.length) {
+            extent = Arrays.copyOf(extent, Math.max(4, extentSize + (extentSize >> 1) + 1));
+        }
+        // Cas courant : la nouvelle instance a le plus grand index, aucun décalage
+        System.arraycopy(extent, insertAt, extent, insertAt + 1, extentSize - insertAt);
+        extent[insertAt] = instanceIndex;
+        extentSize++;
+        hash = 0;
+        extentClassCounts = null;
+        return true;
     }
 
     /**
@@ -49,35 +177,327 @@ public class FormalConcept implements Serializable {
      * @return true if the extent was modified, false otherwise
      */
     public boolean removeFromExtent(int instanceIndex) {
-        return this.extent.remove(instanceIndex);
+        requireExtent();
+        if (shared != null) {
+            return shared.remove(instanceIndex) && extentChanged(-1);
+        }
+        int pos = Arrays.binarySearch(extent, 0, extentSize, instanceIndex);
+        if (pos < 0) {
+            return false;
+        }
+        System.arraycopy(extent, pos + 1, extent, pos, extentSize - pos - 1);
+        extentSize--;
+        hash = 0;
+        extentClassCounts = null;
+        return true;
+    }
+
+    /**
+     * Adds an instance to the concept, whatever its representation: the index is inserted in the
+     * extent, or the class count, size and weight are incremented in extent-free mode.
+     *
+     * @param instanceIndex The index of the instance to add
+     * @param classIndex The class index of the instance (-1 if missing)
+     * @param weight The weight of the instance
+     * @return true if the concept was modified, false if the instance was already covered
+     */
+    public boolean addInstance(int instanceIndex, int classIndex, double weight) {
+        if (classCounts == null) {
+            // La classe de l'instance est connue : l'histogramme est mis à jour au lieu d'être invalidé
+            int[] histogram = extentClassCounts;
+            if (!addToExtent(instanceIndex)) {
+                return false;
+            }
+            if (histogram != null && classIndex >= 0) {
+                if (classIndex >= histogram.length) {
+                    histogram = Arrays.copyOf(histogram, classIndex + 1);
+                }
+                histogram[classIndex]++;
+            }
+            extentClassCounts = histogram;
+            return true;
+        }
+        // Sans extension, seule une instance plus récente que toutes les instances couvertes est nouvelle
+        if (instanceIndex <= highestIndex) {
+            return false;
+        }
+        if (classIndex >= 0) {
+            if (classIndex >= classCounts.length) {
+                classCounts = Arrays.copyOf(classCounts, classIndex + 1);
+            }
+            classCounts[classIndex]++;
+        }
+        extentSize++;
+        extentWeight += weight;
+        highestIndex = instanceIndex;
+        hash = 0;
+        return true;
+    }
+
+    /**
+     * Replaces the extent by its sufficient statistics, read from the context the extent indices refer to.
+     * Has no effect if the concept is already extent-free.
+     *
+     * @param context The context of the extent indices
+     */
+    public void retainStatisticsOnly(NominalContext context) {
+        if (classCounts != null) {
+            return;
+        }
+        int[] extent = sortedExtent();
+        shared = null;
+        double weight = 0.0;
+        for (int i = 0; i < extentSize; i++) {
+            weight += context.getInstanceWeight(extent[i]);
+        }
+        classCounts = countClasses(extent, context);
+        extentClassCounts = null;
+        histogramContext = null;
+        extentWeight = weight;
+        highestIndex = extentSize > 0 ? extent[extentSize - 1] : -1;
+        this.extent = EMPTY;
+        hash = 0;
+    }
+
+    /**
+     * Switches the extent to the shared chunked representation (see SharedExtent), canonicalised in
+     * the given pool; an extent already shared in another pool moves to this one.
+     * Has no effect on an extent-free concept.
+     *
+     * @param pool Chunk pool of the owning model
+     */
+    public void shareExtent(ExtentChunkPool pool) {
+        if (classCounts != null) {
+            return;
+        }
+        if (shared != null) {
+            if (shared.pool() != pool) {
+                shared = SharedExtent.of(pool, shared.toSortedArray(), extentSize);
+            }
+            return;
+        }
+        shared = SharedExtent.of(pool, extent, extentSize);
+        extent = EMPTY;
+    }
+
+    /**
+     * @return true if the extent is stored as shared chunks
+     */
+    public boolean isExtentShared() {
+        return shared != null;
+    }
+
+    private boolean extentChanged(int delta) {
+        extentSize += delta;
+        hash = 0;
+        extentClassCounts = null;
+        return true;
+    }
+
+    /**
+     * Per-class counts of the concept: the sufficient statistics in extent-free mode, otherwise the
+     * histogram of the extent, counted from the context on first use and kept up to date by
+     * addInstance(). It is counted again if the extent changed without class information or if the
+     * context removed instances since (the extent indices then designate other instances).
+     *
+     * @param context The context of the extent indices
+     * @return The per-class counts (internal array, not to be modified)
+     */
+    public int[] classHistogram(NominalContext context) {
+        if (classCounts != null) {
+            return classCounts;
+        }
+        if (extentClassCounts == null || histogramContext != context
+                || histogramEvictions != context.getEvictionCount()) {
+            extentClassCounts = countClasses(sortedExtent(), context);
+            histogramContext = context;
+            histogramEvictions = context.getEvictionCount();
+        }
+        return extentClassCounts;
+    }
+
+    private int[] countClasses(int[] extent, NominalContext context) {
+        int[] counts = new int[context.getNumClasses()];
+        for (int i = 0; i < extentSize; i++) {
+            int classIndex = context.getInstanceClassIndex(extent[i]);
+            if (classIndex >= 0) {
+                if (classIndex >= counts.length) {
+                    counts = Arrays.copyOf(counts, classIndex + 1);
+                }
+                counts[classIndex]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * @return The sorted extent indices: the internal array (first extentSize cells) or, in shared mode, a copy
+     */
+    private int[] sortedExtent() {
+        return shared != null ? shared.toSortedArray() : extent;
+    }
+
+    /**
+     * Merges another concept of the same intent into this one: union of the extents, or in extent-free
+     * mode the per-class maximum (a lower bound of the union, the overlap being unknown).
+     *
+     * @param other A concept with the same intent and the same representation
+     */
+    public void absorb(FormalConcept other) {
+        if ((classCounts == null) != (other.classCounts == null)) {
+            throw new IllegalStateException("Fusion impossible entre un concept avec extension et un concept sans extension");
+        }
+        if (classCounts == null) {
+            int[] otherExtent = other.sortedExtent();
+            for (int i = 0; i < other.extentSize; i++) {
+                addToExtent(otherExtent[i]);
+            }
+            return;
+        }
+        if (other.classCounts.length > classCounts.length) {
+            classCounts = Arrays.copyOf(classCounts, other.classCounts.length);
+        }
+        int size = 0;
+        for (int c = 0; c < classCounts.length; c++) {
+            if (c < other.classCounts.length) {
+                classCounts[c] = Math.max(classCounts[c], other.classCounts[c]);
+            }
+            size += classCounts[c];
+        }
+        extentSize = Math.max(Math.max(extentSize, other.extentSize), size);
+        extentWeight = Math.max(extentWeight, other.extentWeight);
+        highestIndex = Math.max(highestIndex, other.highestIndex);
+        hash = 0;
+    }
+
+    /**
+     * @return true if the extent has been replaced by its sufficient statistics
+     */
+    public boolean isExtentFree() {
+        return classCounts != null;
+    }
+
+    /**
+     * @return The per-class counts of the extent (copy), in extent-free mode
+     */
+    public int[] getClassCounts() {
+        if (classCounts == null) {
+            throw new IllegalStateException("Effectifs par classe disponibles uniquement sans extension");
+        }
+        return classCounts.clone();
+    }
+
+    /**
+     * @return The total weight of the instances added to the extent-free concept (0 if the extent is kept)
+     */
+    public double getExtentWeight() {
+        return extentWeight;
+    }
+
+    private void requireExtent() {
+        if (classCounts != null) {
+            throw new IllegalStateException("Extension non conservée (concept sans extension)");
+        }
     }
 
     /**
-     * @return The concept's extent (instance indices)
+     * @return The concept's extent (instance indices), as a read-only view in increasing order
+     *         (empty in extent-free mode)
      */
     public Set<Integer> getExtent() {
-        return new HashSet<>(extent);
+        return new ExtentView();
     }
 
     /**
-     * @return The concept's intent (attribute-value pairs)
+     * @return The concept's intent (attribute-value pairs), as a read-only view
      */
     public Set<Map.Entry<String, String>> getIntent() {
-        return new HashSet<>(intent);
+        return new IntentView();
+    }
+
+    /**
+     * @return true if the instance index belongs to the extent (binary search, no boxing)
+     */
+    public boolean extentContains(int instanceIndex) {
+        if (classCounts != null) return false;
+        if (shared != null) return shared.contains(instanceIndex);
+        return Arrays.binarySearch(extent, 0, extentSize, instanceIndex) >= 0;
+    }
+
+    /**
+     * @param i position in the extent, 0 &lt;= i &lt; getExtentSize()
+     * @return the i-th smallest instance index of the extent
+     */
+    public int getExtentIndex(int i) {
+        requireExtent();
+        if (i < 0 || i >= extentSize) {
+            throw new IndexOutOfBoundsException("Index " + i + " hors de l'extension de taille " + extentSize);
+        }
+        return shared != null ? shared.toSortedArray()[i] : extent[i];
+    }
+
+    /**
+     * @return true if the pair belongs to the intent
+     */
+    public boolean intentContains(String attribute, String value) {
+        int code = codec.lookup(attribute, value);
+        return code >= 0 && Arrays.binarySearch(intent, code) >= 0;
+    }
+
+    /**
+     * @return true if every pair of the intent is satisfied by the given attribute values
+     */
+    public boolean intentSatisfiedBy(Map<String, String> attributeValues) {
+        for (int code : intent) {
+            Map.Entry<String, String> pair = codec.decode(code);
+            if (!pair.getValue().equals(attributeValues.get(pair.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the sorted pair codes of the intent (internal array, not to be modified)
+     */
+    int[] intentCodes() {
+        return intent;
+    }
+
+    /**
+     * @return the pair dictionary the intent codes refer to
+     */
+    IntentCodec codec() {
+        return codec;
+    }
+
+    /**
+     * Codes are compared directly when both concepts share a dictionary, pairs otherwise.
+     */
+    private boolean sameIntent(FormalConcept other) {
+        return codec == other.codec ? Arrays.equals(intent, other.intent)
+                : intentHash == other.intentHash && getIntent().equals(other.getIntent());
     }
 
     /**
      * @return Size of the extent (number of instances)
      */
     public int getExtentSize() {
-        return extent.size();
+        return extentSize;
     }
 
     /**
      * @return Size of the intent (number of attribute-value pairs)
      */
     public int getIntentSize() {
-        return intent.size();
+        return intent.length;
+    }
+
+    /**
+     * @return true if the intent was computed exactly, false if it comes from a sampled φ
+     */
+    public boolean isExact() {
+        return exact;
     }
 
     /**
@@ -86,14 +506,132 @@ public class FormalConcept implements Serializable {
      */
     public void remapExtentIndices(java.util.List<Integer> sampleToOriginal) {
         if (sampleToOriginal == null || sampleToOriginal.isEmpty()) return;
-        java.util.Set<Integer> newSet = new java.util.HashSet<>();
-        for (Integer idx : new java.util.HashSet<>(extent)) { // snapshot
-            if (idx != null && idx >= 0 && idx < sampleToOriginal.size()) {
-                newSet.add(sampleToOriginal.get(idx));
+        if (classCounts != null) {
+            // Sans extension, seul le plus grand index couvert est à exprimer en indices originaux
+            int max = -1;
+            for (int idx : sampleToOriginal) {
+                max = Math.max(max, idx);
+            }
+            if (highestIndex >= 0) highestIndex = max;
+            return;
+        }
+        int[] extent = sortedExtent();
+        int[] remapped = new int[extentSize];
+        int n = 0;
+        for (int i = 0; i < extentSize; i++) {
+            int idx = extent[i];
+            if (idx >= 0 && idx < sampleToOriginal.size()) {
+                remapped[n++] = sampleToOriginal.get(idx);
             }
         }
-        extent.clear();
-        extent.addAll(newSet);
+        Arrays.sort(remapped, 0, n);
+        // Suppression des doublons éventuels après remappage
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || remapped[unique - 1] != remapped[i]) {
+                remapped[unique++] = remapped[i];
+            }
+        }
+        extentSize = unique;
+        hash = 0;
+        if (shared != null) {
+            shared = SharedExtent.of(shared.pool(), remapped, unique);
+        } else {
+            this.extent = remapped;
+        }
+    }
+
+    /**
+     * Vue en lecture seule de l'extension, adossée au tableau trié.
+     */
+    private final class ExtentView extends AbstractSet<Integer> {
+        @Override
+        public Iterator<Integer> iterator() {
+            if (shared != null) {
+                return new Iterator<Integer>() {
+                    private int next = shared.nextIndex(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0;
+                    }
+
+                    @Override
+                    public Integer next() {
+                        if (next < 0) throw new NoSuchElementException();
+                        int current = next;
+                        next = shared.nextIndex(current + 1);
+                        return current;
+                    }
+                };
+            }
+            return new Iterator<Integer>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size();
+                }
+
+                @Override
+                public Integer next() {
+                    if (next >= size()) throw new NoSuchElementException();
+                    return extent[next++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            // Vue vide sans extension
+            return classCounts == null ? extentSize : 0;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer && extentContains((Integer) o);
+        }
+    }
+
+    /**
+     * Vue en lecture seule de l'intention, décodée à la volée.
+     */
+    private final class IntentView extends AbstractSet<Map.Entry<String, String>> {
+        @Override
+        public Iterator<Map.Entry<String, String>> iterator() {
+            return new Iterator<Map.Entry<String, String>>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < intent.length;
+                }
+
+                @Override
+                public Map.Entry<String, String> next() {
+                    if (next >= intent.length) throw new NoSuchElementException();
+                    return codec.decode(intent[next++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return intent.length;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            if (!(e.getKey() instanceof String) || !(e.getValue() instanceof String)) return false;
+            return intentContains((String) e.getKey(), (String) e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return intentHash;
+        }
     }
 
     @Override
@@ -102,22 +640,26 @@ public class FormalConcept implements Serializable {
         sb.append("FormalConcept{extent=[");
 
         // Format the extent
-        boolean first = true;
-        for (Integer idx : extent) {
-            if (!first) sb.append(", ");
-            sb.append(idx);
-            first = false;
+        int[] extent = sortedExtent();
+        for (int i = 0; i < extent.length && i < extentSize; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(extent[i]);
         }
-        sb.append("], intent=[");
+        sb.append("]");
+        if (classCounts != null) {
+            sb.append(", size=").append(extentSize).append(", classCounts=").append(Arrays.toString(classCounts));
+        }
+        sb.append(", intent=[");
 
         // Format the intent
-        first = true;
-        for (Map.Entry<String, String> pair : intent) {
-            if (!first) sb.append(", ");
+        for (int i = 0; i < intent.length; i++) {
+            Map.Entry<String, String> pair = codec.decode(intent[i]);
+            if (i > 0) sb.append(", ");
             sb.append("(").append(pair.getKey()).append(", ").append(pair.getValue()).append(")");
-            first = false;
         }
-        sb.append("]}");
+        sb.append("]");
+        if (!exact) sb.append(", approx");
+        sb.append("}");
 
         return sb.toString();
     }
@@ -127,12 +669,164 @@ public class FormalConcept implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FormalConcept concept = (FormalConcept) o;
-        return Objects.equals(extent, concept.extent) &&
-               Objects.equals(intent, concept.intent);
+        if (classCounts != null || concept.classCounts != null) {
+            return extentSize == concept.extentSize
+                    && Arrays.equals(classCounts, concept.classCounts)
+                    && sameIntent(concept);
+        }
+        if (extentSize != concept.extentSize || !sameIntent(concept)) {
+            return false;
+        }
+        if (shared != null && concept.shared != null) {
+            return shared.sameAs(concept.shared);
+        }
+        return Arrays.equals(sortedExtent(), 0, extentSize, concept.sortedExtent(), 0, concept.extentSize);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(extent, intent);
+        int h = hash;
+        if (h == 0) {
+            h = 31 * intentHash;
+            if (classCounts != null) {
+                h = 31 * (31 * h + extentSize) + Arrays.hashCode(classCounts);
+            }
+            int[] extent = sortedExtent();
+            for (int i = 0; i < extent.length && i < extentSize; i++) {
+                h = 31 * h + extent[i];
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    /**
+     * Writes the concept in compact binary form (see ConceptArchive): flags, extent or class counts,
+     * and the intent pairs in clear text, pair codes being specific to the model's dictionary.
+     *
+     * @param out Destination
+     */
+    public void writeCompact(DataOutput out) throws IOException {
+        out.writeBoolean(exact);
+        out.writeBoolean(classCounts != null);
+        out.writeInt(extentSize);
+        if (classCounts == null) {
+            int[] extent = sortedExtent();
+            for (int i = 0; i < extentSize; i++) {
+                out.writeInt(extent[i]);
+            }
+        } else {
+            out.writeInt(classCounts.length);
+            for (int count : classCounts) {
+                out.writeInt(count);
+            }
+            out.writeDouble(extentWeight);
+            out.writeInt(highestIndex);
+        }
+        out.writeInt(intent.length);
+        for (int code : intent) {
+            Map.Entry<String, String> pair = codec.decode(code);
+            out.writeUTF(pair.getKey());
+            out.writeUTF(pair.getValue());
+        }
+    }
+
+    /**
+     * Reads a concept written by writeCompact.
+     *
+     * @param in Source
+     * @param codec pair dictionary of the owning model
+     * @return The concept
+     */
+    public static FormalConcept readCompact(DataInput in, IntentCodec codec) throws IOException {
+        boolean exact = in.readBoolean();
+        boolean extentFree = in.readBoolean();
+        int size = in.readInt();
+        int[] extent = EMPTY;
+        int[] counts = null;
+        double weight = 0.0;
+        int highest = -1;
+        if (!extentFree) {
+            extent = new int[size];
+            for (int i = 0; i < size; i++) {
+                extent[i] = in.readInt();
+            }
+        } else {
+            counts = new int[in.readInt()];
+            for (int c = 0; c < counts.length; c++) {
+                counts[c] = in.readInt();
+            }
+            weight = in.readDouble();
+            highest = in.readInt();
+        }
+        int intentSize = in.readInt();
+        Set<Map.Entry<String, String>> pairs = new java.util.HashSet<>();
+        for (int i = 0; i < intentSize; i++) {
+            pairs.add(new java.util.AbstractMap.SimpleImmutableEntry<>(in.readUTF(), in.readUTF()));
+        }
+        FormalConcept concept = new FormalConcept(codec, extent, pairs, exact);
+        if (extentFree) {
+            concept.classCounts = counts;
+            concept.extentSize = size;
+            concept.extentWeight = weight;
+            concept.highestIndex = highest;
+        }
+        return concept;
+    }
+
+    /**
+     * L'intention est sérialisée en clair et réencodée à la lecture dans le dictionnaire du modèle,
+     * relu avec le concept (même instance pour tous les concepts du modèle).
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(extentSize);
+        // Sans extension, aucun index n'est écrit
+        int stored = classCounts == null ? extentSize : 0;
+        out.writeInt(stored);
+        int[] extent = sortedExtent();
+        for (int i = 0; i < stored; i++) {
+            out.writeInt(extent[i]);
+        }
+        out.writeInt(intent.length);
+        for (int code : intent) {
+            Map.Entry<String, String> pair = codec.decode(code);
+            out.writeUTF(pair.getKey());
+            out.writeUTF(pair.getValue());
+        }
+        out.writeBoolean(classCounts != null);
+        if (classCounts != null) {
+            out.writeObject(classCounts);
+            out.writeDouble(extentWeight);
+            out.writeInt(highestIndex);
+        }
+        out.writeBoolean(shared != null);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        extentSize = in.readInt();
+        int stored = in.readInt();
+        extent = stored == 0 ? EMPTY : new int[stored];
+        for (int i = 0; i < stored; i++) {
+            extent[i] = in.readInt();
+        }
+        int intentSize = in.readInt();
+        intent = new int[intentSize];
+        for (int i = 0; i < intentSize; i++) {
+            intent[i] = codec.encode(in.readUTF(), in.readUTF());
+        }
+        Arrays.sort(intent);
+        intentHash = computeIntentHash(codec, intent);
+        highestIndex = -1;
+        if (in.readBoolean()) {
+            classCounts = (int[]) in.readObject();
+            extentWeight = in.readDouble();
+            highestIndex = in.readInt();
+        }
+        if (in.readBoolean()) {
+            // Pool provisoire : le learner rattache ensuite l'extension au pool de son modèle
+            shareExtent(new ExtentChunkPool());
+        }
     }
 }
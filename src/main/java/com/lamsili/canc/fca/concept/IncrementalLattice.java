@@ -0,0 +1,321 @@
+package com.lamsili.canc.fca.concept;
+
+import com.lamsili.canc.fca.context.NominalContext;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Structure de concepts maintenue incrémentalement (famille de Godin) : l'insertion d'un objet
+ * met à jour les extensions des concepts dont l'intention est incluse dans celle de l'objet et crée
+ * uniquement les nouveaux concepts fermés B ∩ X (X = intention de l'objet) qui n'existent pas encore.
+ *
+ * Les concepts sont parcourus par taille d'intention croissante. L'intersection de deux intentions
+ * fermées étant fermée, chaque intention créée est un vrai concept même si la structure ne contient
+ * qu'une partie du treillis ; son extension est donc calculée sur les bitmaps du contexte plutôt que
+ * déduite du concept générateur.
+ *
+ * Un index inversé (code de couple -> concepts) limite l'insertion aux concepts qui partagent au
+ * moins un couple avec l'objet : |B ∩ X| est compté sur les listes des couples de X, sans copie des
+ * intentions. Les autres concepts ont une intersection vide et ne sont jamais visités.
+ */
+public class IncrementalLattice implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 3L;
+
+    // Ordre de parcours : taille d'intention croissante, puis ordre d'enregistrement
+    private static final Comparator<Node> BY_SIZE_THEN_AGE = (a, b) -> {
+        int cmp = Integer.compare(a.codes.length, b.codes.length);
+        return cmp != 0 ? cmp : Long.compare(a.sequence, b.sequence);
+    };
+
+    // Dictionnaire des couples du modèle, partagé avec ses concepts
+    private final IntentCodec codec;
+    // Index par codes de couples, reconstruit à la désérialisation
+    private transient Map<IntentKey, Node> byIntent = new HashMap<>();
+    private transient Map<Integer, List<Node>> postings = new HashMap<>();
+    private transient Node top; // Concept d'intention vide, inclus dans toute intention
+    private transient long nextSequence;
+    private transient int epoch;
+
+    /**
+     * Concept indexé, avec les codes triés de son intention et le compteur de l'insertion en cours.
+     */
+    private static final class Node {
+        final FormalConcept concept;
+        final int[] codes;
+        final long sequence;
+        int epoch;
+        int shared; // |B ∩ X| pour l'insertion d'époque epoch
+
+        Node(FormalConcept concept, int[] codes, long sequence) {
+            this.concept = concept;
+            this.codes = codes;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Clé d'intention par codes triés.
+     */
+    private static final class IntentKey {
+        final int[] codes;
+        final int hash;
+
+        IntentKey(int[] codes) {
+            this.codes = codes;
+            this.hash = Arrays.hashCode(codes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IntentKey && Arrays.equals(codes, ((IntentKey) o).codes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * @param codec Dictionnaire des couples du modèle
+     */
+    public IncrementalLattice(IntentCodec codec) {
+        this.codec = codec;
+    }
+
+    /**
+     * Remplace le contenu de la structure par les concepts donnés.
+     * Pour des intentions identiques, seul le premier concept est indexé.
+     *
+     * @param concepts Concepts existants (typiquement issus de la dernière construction du modèle)
+     */
+    public void reset(Collection<FormalConcept> concepts) {
+        byIntent.clear();
+        postings.clear();
+        top = null;
+        for (FormalConcept concept : concepts) {
+            register(concept);
+        }
+    }
+
+    /**
+     * Insère l'objet d'index objectIndex et d'intention objectIntent.
+     *
+     * @param objectIndex Index de l'instance dans le contexte (déjà ajoutée au contexte)
+     * @param objectIntent Couples attribut-valeur actifs de l'instance
+     * @param context Contexte nominal (bitmaps utilisés pour les extensions des nouveaux concepts)
+     * @param modifiedOut Reçoit les concepts existants dont l'extension a été étendue (peut être null)
+     * @param createdOut Reçoit les concepts créés (peut être null)
+     */
+    public void insert(int objectIndex, Set<Map.Entry<String, String>> objectIntent, NominalContext context,
+                       List<FormalConcept> modifiedOut, List<FormalConcept> createdOut) {
+        if (objectIntent == null || objectIntent.isEmpty()) {
+            return;
+        }
+        int[] x = new int[objectIntent.size()];
+        int n = 0;
+        for (Map.Entry<String, String> pair : objectIntent) {
+            x[n++] = codec.encode(pair.getKey(), pair.getValue());
+        }
+        Arrays.sort(x);
+
+        // Seuls les concepts présents avant l'insertion et partageant un couple avec l'objet sont examinés
+        epoch++;
+        List<Node> touched = new ArrayList<>();
+        for (int code : x) {
+            List<Node> posting = postings.get(code);
+            if (posting == null) continue;
+            for (Node node : posting) {
+                if (node.epoch != epoch) {
+                    node.epoch = epoch;
+                    node.shared = 0;
+                    touched.add(node);
+                }
+                node.shared++;
+            }
+        }
+        touched.sort(BY_SIZE_THEN_AGE);
+
+        if (top != null) {
+            extend(top, objectIndex, context, modifiedOut);
+        }
+        for (Node node : touched) {
+            if (node.shared == node.codes.length) {
+                // Concept modifié : l'objet rejoint son extension
+                extend(node, objectIndex, context, modifiedOut);
+                continue;
+            }
+            int[] meet = intersect(node.codes, x, node.shared);
+            if (!byIntent.containsKey(new IntentKey(meet))) {
+                create(meet, context, createdOut);
+            }
+        }
+
+        // Concept objet (X', X) s'il n'a été produit par aucun générateur
+        if (!byIntent.containsKey(new IntentKey(x))) {
+            create(x, context, createdOut);
+        }
+    }
+
+    /**
+     * @return Le concept indexé pour cette intention, ou null
+     */
+    public FormalConcept getConcept(Set<Map.Entry<String, String>> intent) {
+        int[] codes = new int[intent.size()];
+        int n = 0;
+        for (Map.Entry<String, String> pair : intent) {
+            int code = codec.lookup(pair.getKey(), pair.getValue());
+            if (code < 0) return null;
+            codes[n++] = code;
+        }
+        Arrays.sort(codes);
+        Node node = byIntent.get(new IntentKey(codes));
+        return node == null ? null : node.concept;
+    }
+
+    /**
+     * Réintègre un concept existant (promotion depuis le tier froid).
+     *
+     * @return false si un concept de même intention est déjà indexé
+     */
+    public boolean add(FormalConcept concept) {
+        return register(concept);
+    }
+
+    /**
+     * Retire un concept de la structure (éviction). Une intention retirée pourra être recréée
+     * par une insertion ultérieure.
+     *
+     * @return true si le concept était indexé
+     */
+    public boolean remove(FormalConcept concept) {
+        IntentKey key = new IntentKey(concept.intentCodes());
+        Node node = byIntent.get(key);
+        if (node == null || node.concept != concept) {
+            return false;
+        }
+        byIntent.remove(key);
+        if (node == top) {
+            top = null;
+        }
+        for (int code : node.codes) {
+            List<Node> posting = postings.get(code);
+            posting.remove(node);
+            if (posting.isEmpty()) {
+                postings.remove(code);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Nombre de concepts indexés
+     */
+    public int size() {
+        return byIntent.size();
+    }
+
+    private boolean register(FormalConcept concept) {
+        int[] codes = concept.intentCodes();
+        IntentKey key = new IntentKey(codes);
+        if (byIntent.containsKey(key)) {
+            return false;
+        }
+        Node node = new Node(concept, codes, nextSequence++);
+        byIntent.put(key, node);
+        if (codes.length == 0) {
+            top = node;
+        }
+        for (int code : codes) {
+            postings.computeIfAbsent(code, c -> new ArrayList<>()).add(node);
+        }
+        return true;
+    }
+
+    private static void extend(Node node, int objectIndex, NominalContext context, List<FormalConcept> modifiedOut) {
+        if (node.concept.addInstance(objectIndex, context.getInstanceClassIndex(objectIndex),
+                context.getInstanceWeight(objectIndex)) && modifiedOut != null) {
+            modifiedOut.add(node.concept);
+        }
+    }
+
+    private void create(int[] codes, NominalContext context, List<FormalConcept> createdOut) {
+        Set<Map.Entry<String, String>> intent = new HashSet<>();
+        for (int code : codes) {
+            intent.add(codec.decode(code));
+        }
+        FormalConcept created = new FormalConcept(codec, extentOf(codes, context), intent, true);
+        register(created);
+        if (createdOut != null) {
+            createdOut.add(created);
+        }
+    }
+
+    /**
+     * Intersection de deux listes de codes triées dont on connaît la taille.
+     */
+    private static int[] intersect(int[] a, int[] b, int size) {
+        int[] meet = new int[size];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                meet[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return meet;
+    }
+
+    /**
+     * Extension d'une intention : intersection des bitmaps de ses couples.
+     */
+    private int[] extentOf(int[] codes, NominalContext context) {
+        BitSet extent = null;
+        for (int code : codes) {
+            Map.Entry<String, String> pair = codec.decode(code);
+            BitSet posting = context.postingBitmap(pair.getKey(), pair.getValue());
+            if (posting == null) {
+                return new int[0];
+            }
+            if (extent == null) {
+                extent = (BitSet) posting.clone();
+            } else {
+                extent.and(posting);
+            }
+        }
+        return extent.stream().toArray();
+    }
+
+    /**
+     * Les concepts sont écrits dans leur ordre d'enregistrement ; l'index est reconstruit à la lecture.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        List<Node> nodes = new ArrayList<>(byIntent.values());
+        nodes.sort(Comparator.comparingLong(node -> node.sequence));
+        out.writeInt(nodes.size());
+        for (Node node : nodes) {
+            out.writeObject(node.concept);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        byIntent = new HashMap<>();
+        postings = new HashMap<>();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            register((FormalConcept) in.readObject());
+        }
+    }
+}
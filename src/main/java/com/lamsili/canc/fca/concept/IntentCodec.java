@@ -0,0 +1,62 @@
+package com.lamsili.canc.fca.concept;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dictionnaire des couples attribut-valeur : chaque couple rencontré reçoit un code entier stable,
+ * ce qui permet de stocker une intention sous forme de int[] trié.
+ *
+ * Chaque modèle possède son dictionnaire (voir ModelContext) : l'ordre des codes, qui fixe l'ordre de
+ * parcours des intentions, ne dépend ainsi que du flux du modèle et non des autres learners de la JVM,
+ * et le dictionnaire est libéré avec le modèle. Le nombre de couples est borné par le nombre de
+ * valeurs nominales du flux. Les concepts, l'index inversé et le treillis incrémental d'un modèle
+ * partagent la même instance, y compris après désérialisation.
+ */
+public final class IntentCodec implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Map<String, Integer>> codes = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Map.Entry<String, String>> pairs = new CopyOnWriteArrayList<>();
+
+    /**
+     * @return Le code du couple, attribué à la première rencontre
+     */
+    public int encode(String attribute, String value) {
+        Integer code = codes.computeIfAbsent(attribute, a -> new ConcurrentHashMap<>()).get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (pairs) {
+            Map<String, Integer> values = codes.get(attribute);
+            code = values.get(value);
+            if (code == null) {
+                code = pairs.size();
+                pairs.add(new AbstractMap.SimpleImmutableEntry<>(attribute, value));
+                values.put(value, code);
+            }
+            return code;
+        }
+    }
+
+    /**
+     * @return Le code du couple, ou -1 s'il n'a jamais été encodé (aucune intention ne peut le contenir)
+     */
+    public int lookup(String attribute, String value) {
+        Map<String, Integer> values = codes.get(attribute);
+        if (values == null) return -1;
+        Integer code = values.get(value);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * @return Le couple (immuable) correspondant au code
+     */
+    public Map.Entry<String, String> decode(int code) {
+        return pairs.get(code);
+    }
+}
@@ -0,0 +1,192 @@
+package com.lamsili.canc.fca.concept;
+
+import java.util.Arrays;
+
+/**
+ * Extension persistante à partage de structure : bitmap découpé en blocs de CHUNK_BITS instances.
+ * Les blocs sont immuables et canonisés dans le pool faible du modèle, de sorte que des extensions qui
+ * coïncident sur une plage d'instances partagent le même bloc. Une modification copie seulement
+ * le bloc touché (copie sur écriture) ; un bloc vide n'est pas stocké.
+ *
+ * Pour N concepts dont les extensions se recouvrent largement, la mémoire tend vers celle de
+ * l'union des blocs distincts plutôt que vers N extensions indépendantes.
+ */
+final class SharedExtent {
+
+    static final int CHUNK_BITS = 512;
+    private static final int CHUNK_WORDS = CHUNK_BITS / 64;
+    private static final Chunk[] NO_CHUNKS = new Chunk[0];
+
+    /**
+     * Bloc immuable de CHUNK_BITS bits.
+     */
+    static final class Chunk {
+        final long[] words;
+        final int cardinality;
+        final int hash;
+
+        Chunk(long[] words) {
+            this.words = words;
+            int bits = 0;
+            for (long word : words) {
+                bits += Long.bitCount(word);
+            }
+            this.cardinality = bits;
+            this.hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Chunk && Arrays.equals(words, ((Chunk) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final ExtentChunkPool pool;
+    private Chunk[] chunks;
+    private int size;
+
+    private SharedExtent(ExtentChunkPool pool, Chunk[] chunks, int size) {
+        this.pool = pool;
+        this.chunks = chunks;
+        this.size = size;
+    }
+
+    /**
+     * @param pool Pool où les blocs sont canonisés
+     * @param sorted Indices triés, sans doublon
+     * @param length Nombre d'indices significatifs
+     * @return L'extension partagée correspondante
+     */
+    static SharedExtent of(ExtentChunkPool pool, int[] sorted, int length) {
+        if (length == 0) {
+            return new SharedExtent(pool, NO_CHUNKS, 0);
+        }
+        Chunk[] chunks = new Chunk[sorted[length - 1] / CHUNK_BITS + 1];
+        int i = 0;
+        while (i < length) {
+            int chunkIndex = sorted[i] / CHUNK_BITS;
+            long[] words = new long[CHUNK_WORDS];
+            int base = chunkIndex * CHUNK_BITS;
+            while (i < length && sorted[i] < base + CHUNK_BITS) {
+                int bit = sorted[i] - base;
+                words[bit >>> 6] |= 1L << bit;
+                i++;
+            }
+            chunks[chunkIndex] = intern(pool, words);
+        }
+        return new SharedExtent(pool, chunks, length);
+    }
+
+    private static Chunk intern(ExtentChunkPool pool, long[] words) {
+        Chunk chunk = new Chunk(words);
+        return chunk.cardinality == 0 ? null : pool.intern(chunk);
+    }
+
+    /**
+     * @return Le pool où les blocs de cette extension sont canonisés
+     */
+    ExtentChunkPool pool() {
+        return pool;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int index) {
+        if (index < 0) return false;
+        int chunkIndex = index / CHUNK_BITS;
+        if (chunkIndex >= chunks.length || chunks[chunkIndex] == null) return false;
+        int bit = index % CHUNK_BITS;
+        return (chunks[chunkIndex].words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Ajoute un indice : seul le bloc concerné est copié puis canonisé.
+     *
+     * @return true si l'extension a changé
+     */
+    boolean add(int index) {
+        if (contains(index)) return false;
+        int chunkIndex = index / CHUNK_BITS;
+        if (chunkIndex >= chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkIndex + 1);
+        }
+        long[] words = chunks[chunkIndex] == null ? new long[CHUNK_WORDS] : chunks[chunkIndex].words.clone();
+        int bit = index % CHUNK_BITS;
+        words[bit >>> 6] |= 1L << bit;
+        chunks[chunkIndex] = intern(pool, words);
+        size++;
+        return true;
+    }
+
+    /**
+     * Retire un indice (copie sur écriture du bloc concerné).
+     *
+     * @return true si l'extension a changé
+     */
+    boolean remove(int index) {
+        if (!contains(index)) return false;
+        int chunkIndex = index / CHUNK_BITS;
+        long[] words = chunks[chunkIndex].words.clone();
+        int bit = index % CHUNK_BITS;
+        words[bit >>> 6] &= ~(1L << bit);
+        chunks[chunkIndex] = intern(pool, words);
+        size--;
+        return true;
+    }
+
+    /**
+     * @param from Position de départ (indice d'instance)
+     * @return Le plus petit indice de l'extension &gt;= from, ou -1
+     */
+    int nextIndex(int from) {
+        for (int chunkIndex = Math.max(0, from) / CHUNK_BITS; chunkIndex < chunks.length; chunkIndex++) {
+            Chunk chunk = chunks[chunkIndex];
+            if (chunk == null) continue;
+            int base = chunkIndex * CHUNK_BITS;
+            int startBit = Math.max(0, from - base);
+            for (int w = startBit >>> 6; w < CHUNK_WORDS; w++) {
+                long word = chunk.words[w];
+                if (w == startBit >>> 6) {
+                    word &= -1L << (startBit & 63);
+                }
+                if (word != 0) {
+                    return base + (w << 6) + Long.numberOfTrailingZeros(word);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Les indices triés (copie)
+     */
+    int[] toSortedArray() {
+        int[] sorted = new int[size];
+        int n = 0;
+        for (int index = nextIndex(0); index >= 0; index = nextIndex(index + 1)) {
+            sorted[n++] = index;
+        }
+        return sorted;
+    }
+
+    /**
+     * Comparaison par blocs : les blocs canonisés égaux sont le même objet.
+     */
+    boolean sameAs(SharedExtent other) {
+        if (size != other.size) return false;
+        int n = Math.max(chunks.length, other.chunks.length);
+        for (int i = 0; i < n; i++) {
+            Chunk a = i < chunks.length ? chunks[i] : null;
+            Chunk b = i < other.chunks.length ? other.chunks[i] : null;
+            if (a != b && (a == null || !a.equals(b))) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,106 @@
+package com.lamsili.canc.fca.concept;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Borne de support pour la génération de concepts : treillis iceberg (support minimal) et/ou
+ * top-k (les k concepts de plus grand support).
+ *
+ * Le support étant anti-monotone (raffiner une intention ne peut que réduire l'extension), un
+ * candidat refusé par admits() peut être écarté avec toute sa descendance. En mode top-k, le seuil
+ * remonte au fil de la génération : c'est le k-ième meilleur support déjà produit.
+ * Les méthodes sont synchronisées pour être partagées par les workers de FCbOEnumerator.
+ */
+public class SupportFilter {
+
+    private final int minSupport;
+    private final int topK;
+    // Supports des k meilleurs concepts produits (tête = k-ième meilleur)
+    private final PriorityQueue<Integer> best = new PriorityQueue<>();
+
+    /**
+     * @param minSupport Taille d'extension minimale (0 ou 1 = pas de seuil)
+     * @param topK Nombre de concepts conservés (0 = tous)
+     */
+    public SupportFilter(int minSupport, int topK) {
+        this.minSupport = Math.max(0, minSupport);
+        this.topK = Math.max(0, topK);
+    }
+
+    /**
+     * @return true si aucune borne n'est configurée
+     */
+    public boolean isUnbounded() {
+        return minSupport <= 1 && topK == 0;
+    }
+
+    /**
+     * @param support Taille d'extension d'un candidat (ou d'un majorant de celle-ci)
+     * @return false si le candidat, et donc tous ses raffinements, ne peut pas être retenu
+     */
+    public synchronized boolean admits(int support) {
+        if (support < minSupport) {
+            return false;
+        }
+        // À support égal, les concepts déjà produits sont prioritaires
+        return topK == 0 || best.size() < topK || support > best.peek();
+    }
+
+    /**
+     * Enregistre le support d'un concept produit (met à jour le seuil top-k).
+     */
+    public synchronized void offer(int support) {
+        if (topK == 0) return;
+        if (best.size() < topK) {
+            best.add(support);
+        } else if (support > best.peek()) {
+            best.poll();
+            best.add(support);
+        }
+    }
+
+    /**
+     * Applique les bornes à une liste de concepts : filtre le support minimal puis conserve
+     * les k plus grandes extensions (l'ordre de génération départage les égalités et est préservé).
+     *
+     * @param concepts Concepts générés
+     * @return Les concepts retenus
+     */
+    public List<FormalConcept> select(List<FormalConcept> concepts) {
+        List<FormalConcept> kept = new ArrayList<>();
+        for (FormalConcept concept : concepts) {
+            if (concept.getExtentSize() >= minSupport) {
+                kept.add(concept);
+            }
+        }
+        if (topK == 0 || kept.size() <= topK) {
+            return kept;
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < kept.size(); i++) {
+            order.add(i);
+        }
+        final List<FormalConcept> candidates = kept;
+        order.sort(Comparator.comparingInt((Integer i) -> candidates.get(i).getExtentSize()).reversed());
+        List<Integer> selected = new ArrayList<>(order.subList(0, topK));
+        selected.sort(null);
+
+        List<FormalConcept> result = new ArrayList<>(topK);
+        for (Integer i : selected) {
+            result.add(candidates.get(i));
+        }
+        return result;
+    }
+
+    public int getMinSupport() {
+        return minSupport;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+}
@@ -4,6 +4,7 @@ package com.lamsili.canc.fca.context;
 import com.yahoo.labs.samoa.instances.Instance;  // Utilisation de l'Instance de MOA via SAMOA
 import java.util.*;
 import moa.core.Utils;
+import weka.core.ContingencyTables;
 import java.io.Serializable;
 
 public class NominalContext implements Serializable {
@@ -19,10 +20,34 @@ public class NominalContext implements Serializable {
     // Delta index: attribute -> (value -> set of instance indices)
     private final Map<String, Map<String, Set<Integer>>> deltaIndex;
 
+    // Tables de contingence maintenues incrémentalement: attribut -> (valeur -> effectifs par classe)
+    private final Map<String, Map<String, int[]>> contingency = new HashMap<>();
+    private int[] classTotals = new int[0];
+
+    // Listes inversées en bitmap (parallèles au deltaIndex) et bitmap des instances de chaque classe
+    private final Map<String, Map<String, BitSet>> postingBitmaps = new HashMap<>();
+    private final List<BitSet> classBitmaps = new ArrayList<>();
+
     // Paramètres de fenêtrage
     private int maxInstances = Integer.MAX_VALUE; // Par défaut, pas de limite
     private boolean useWindowing = false;
 
+    // Élagage des attributs constants ou quasi constants
+    private boolean pruneDegenerateAttributes = false;
+    private double degenerateThreshold = 1.0; // fraction couverte par la valeur dominante (1.0 = strictement constant)
+    private final Set<String> restoredAttributes = new HashSet<>(); // attributs réintégrés manuellement
+    // Sous-ensemble d'attributs retenu par la sélection en ligne (null = tous)
+    private Set<String> selectedAttributes = null;
+    // Contexte dont on hérite le filtre d'attributs (contexte échantillonné -> contexte complet)
+    private NominalContext attributeFilterSource = null;
+
+    // Compteur de modifications et cache des attributs inactifs
+    private long modCount = 0;
+    // Nombre de retraits d'instances : les index des instances restantes changent à chaque retrait
+    private long evictionCount = 0;
+    private transient Set<String> inactiveAttributesCache = null;
+    private transient long inactiveAttributesVersion = -1;
+
     public NominalContext() {
         this.instances = new ArrayList<>();
         this.instanceWeights = new ArrayList<>();
@@ -44,11 +69,25 @@ public class NominalContext implements Serializable {
     /** method 01
      * Adds an instance to the nominal context and updates the index of (attr, val) pairs.
      * @param instance The instance to add
+     * @return The oldest instance removed by windowing, or null
      */
-    public void addInstance(Instance instance) {
+    public Instance addInstance(Instance instance) {
         int idx = instances.size();
         instances.add(instance);
         instanceWeights.add(1.0); // Poids par défaut de 1.0
+        int classIdx = classIndexOf(instance);
+        if (classIdx >= 0) {
+            ensureClassCapacity(Math.max(instance.numClasses(), classIdx + 1));
+            classTotals[classIdx]++;
+        }
+        if (instance.classIndex() >= 0) {
+            // Même lecture de la classe que les règles : une classe manquante compte comme la première valeur
+            int bitmapClass = (int) instance.classValue();
+            while (classBitmaps.size() <= bitmapClass) {
+                classBitmaps.add(new BitSet());
+            }
+            classBitmaps.get(bitmapClass).set(idx);
+        }
 
         // Update delta index for each nominal attribute
         for (int i = 0; i < instance.numAttributes(); i++) {
@@ -64,24 +103,58 @@ public class NominalContext implements Serializable {
                 .computeIfAbsent(attrName, k -> new HashMap<>())
                 .computeIfAbsent(attrValue, v -> new HashSet<>())
                 .add(idx);
+            postingBitmaps
+                .computeIfAbsent(attrName, k -> new HashMap<>())
+                .computeIfAbsent(attrValue, v -> new BitSet())
+                .set(idx);
+
+            // Update contingency counts for this attribute-value pair
+            if (classIdx >= 0) {
+                Map<String, int[]> valueCounts = contingency.computeIfAbsent(attrName, k -> new HashMap<>());
+                int[] counts = valueCounts.computeIfAbsent(attrValue, v -> new int[classTotals.length]);
+                if (counts.length <= classIdx) {
+                    counts = Arrays.copyOf(counts, classTotals.length);
+                    valueCounts.put(attrValue, counts);
+                }
+                counts[classIdx]++;
+            }
         }
+        modCount++;
 
         // Appliquer le fenêtrage si nécessaire
         if (useWindowing && instances.size() > maxInstances) {
-            removeOldestInstance();
+            return removeOldestInstance();
         }
+        return null;
     }
 
     /**
      * Supprime l'instance la plus ancienne du contexte et met à jour les index
+     *
+     * @return L'instance retirée
      */
-    private void removeOldestInstance() {
-        if (instances.isEmpty()) return;
+    private Instance removeOldestInstance() {
+        if (instances.isEmpty()) return null;
 
         // Retirer l'instance 0 qui est la plus ancienne
         Instance oldInstance = instances.remove(0);
+        modCount++;
+        evictionCount++;
         instanceWeights.remove(0); // Supprimer le poids associé
 
+        int oldClassIdx = classIndexOf(oldInstance);
+        if (oldClassIdx >= 0 && oldClassIdx < classTotals.length) {
+            classTotals[oldClassIdx]--;
+        }
+
+        // Tous les bitmaps sont décalés d'une position (l'instance 0 disparaît)
+        for (Map<String, BitSet> values : postingBitmaps.values()) {
+            values.replaceAll((value, bits) -> shiftDown(bits));
+            values.values().removeIf(BitSet::isEmpty);
+        }
+        postingBitmaps.values().removeIf(Map::isEmpty);
+        classBitmaps.replaceAll(NominalContext::shiftDown);
+
         // Pour chaque attribut nominal, retirer la référence à l'instance 0 et décaler tous les autres indices
         for (int i = 0; i < oldInstance.numAttributes(); i++) {
             if (i == oldInstance.classIndex() || !oldInstance.attribute(i).isNominal()) {
@@ -91,6 +164,20 @@ public class NominalContext implements Serializable {
             String attrName = oldInstance.attribute(i).name();
             String attrValue = oldInstance.attribute(i).value((int) oldInstance.value(i));
 
+            Map<String, int[]> valueCounts = contingency.get(attrName);
+            if (oldClassIdx >= 0 && valueCounts != null) {
+                int[] counts = valueCounts.get(attrValue);
+                if (counts != null && oldClassIdx < counts.length) {
+                    counts[oldClassIdx]--;
+                    if (Arrays.stream(counts).allMatch(c -> c == 0)) {
+                        valueCounts.remove(attrValue);
+                        if (valueCounts.isEmpty()) {
+                            contingency.remove(attrName);
+                        }
+                    }
+                }
+            }
+
             Map<String, Set<Integer>> valueMap = deltaIndex.get(attrName);
             if (valueMap != null) {
                 Set<Integer> instanceIndices = valueMap.get(attrValue);
@@ -115,6 +202,7 @@ public class NominalContext implements Serializable {
                 }
             }
         }
+        return oldInstance;
     }
 
     /** method 02
@@ -137,6 +225,18 @@ public class NominalContext implements Serializable {
         return new HashSet<>(instanceIndices);
     }
 
+    /**
+     * @return Nombre d'instances du contexte portant la valeur (|delta(a, v)|, sans copie)
+     */
+    public int deltaSize(String attribute, String value) {
+        Map<String, Set<Integer>> valueMap = deltaIndex.get(attribute);
+        if (valueMap == null) {
+            return 0;
+        }
+        Set<Integer> instanceIndices = valueMap.get(value);
+        return instanceIndices == null ? 0 : instanceIndices.size();
+    }
+
     /** method 03
      * Gets the class value of an instance.
      * @param instanceIdx The index of the instance
@@ -156,6 +256,73 @@ public class NominalContext implements Serializable {
         return instance.attribute(classIdx).value((int) instance.value(classIdx));
     }
 
+    /**
+     * @param instanceIdx The index of the instance
+     * @return The class index of the instance, or -1 if the class is missing
+     */
+    public int getInstanceClassIndex(int instanceIdx) {
+        if (instanceIdx < 0 || instanceIdx >= instances.size()) {
+            return -1;
+        }
+        return classIndexOf(instances.get(instanceIdx));
+    }
+
+    /**
+     * @param classIdx A class index
+     * @return The class value name, or null if the context is empty
+     */
+    public String getClassValue(int classIdx) {
+        if (instances.isEmpty()) {
+            return null;
+        }
+        return instances.get(0).classAttribute().value(classIdx);
+    }
+
+    /**
+     * @return The number of class values seen in the context
+     */
+    public int getNumClasses() {
+        return classTotals.length;
+    }
+
+    /**
+     * Bitmap des instances portant la valeur : référence interne, à ne pas modifier.
+     *
+     * @return Le bitmap, ou null si aucune instance du contexte ne porte la valeur
+     */
+    public BitSet postingBitmap(String attribute, String value) {
+        Map<String, BitSet> values = postingBitmaps.get(attribute);
+        return values == null ? null : values.get(value);
+    }
+
+    /**
+     * Bitmap des instances d'une classe : référence interne, à ne pas modifier.
+     *
+     * @return Le bitmap, ou null si aucune instance de la classe n'a été vue
+     */
+    public BitSet classBitmap(int classIdx) {
+        return classIdx >= 0 && classIdx < classBitmaps.size() ? classBitmaps.get(classIdx) : null;
+    }
+
+    private static BitSet shiftDown(BitSet bits) {
+        return bits.get(1, Math.max(1, bits.length()));
+    }
+
+    /**
+     * @return Compteur de modifications (instances ajoutées ou retirées, filtre d'attributs)
+     */
+    public long getModCount() {
+        return modCount;
+    }
+
+    /**
+     * @return Nombre de retraits (fenêtrage ou effacement) : tant qu'il ne change pas, un index
+     *         d'instance désigne toujours la même instance
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
     /** method 04
      * Gets the number of instances in the context.
      * @return The number of instances
@@ -183,6 +350,209 @@ public class NominalContext implements Serializable {
         instances.clear();
         instanceWeights.clear();
         deltaIndex.clear();
+        postingBitmaps.clear();
+        classBitmaps.clear();
+        contingency.clear();
+        classTotals = new int[0];
+        modCount++;
+        evictionCount++;
+    }
+
+    /**
+     * @return L'index de classe d'une instance, ou -1 si la classe est absente ou manquante
+     */
+    private static int classIndexOf(Instance instance) {
+        int classIdx = instance.classIndex();
+        if (classIdx < 0 || instance.isMissing(classIdx)) {
+            return -1;
+        }
+        return (int) instance.classValue();
+    }
+
+    private void ensureClassCapacity(int numClasses) {
+        if (classTotals.length < numClasses) {
+            classTotals = Arrays.copyOf(classTotals, numClasses);
+        }
+    }
+
+    /**
+     * Gain d'information IG(Classe, Attribut) = H(Classe) - H(Classe|Attribut), calculé à partir des
+     * tables de contingence maintenues incrémentalement (sans parcourir les instances).
+     *
+     * @param attribute Le nom de l'attribut
+     * @return Le gain d'information de l'attribut sur le contexte courant
+     */
+    public double getInformationGain(String attribute) {
+        Map<String, int[]> valueCounts = contingency.get(attribute);
+        if (valueCounts == null || valueCounts.isEmpty()) {
+            return 0.0;
+        }
+        double[] classDistribution = toDoubles(classTotals);
+        double total = Utils.sum(classDistribution);
+        if (total <= 0.0) {
+            return 0.0;
+        }
+        double classEntropy = ContingencyTables.entropy(classDistribution);
+        double conditionalEntropy = 0.0;
+        for (int[] counts : valueCounts.values()) {
+            double[] distribution = toDoubles(counts);
+            double subsetSum = Utils.sum(distribution);
+            if (subsetSum > 0) {
+                conditionalEntropy += (subsetSum / total) * ContingencyTables.entropy(distribution);
+            }
+        }
+        return classEntropy - conditionalEntropy;
+    }
+
+    private static double[] toDoubles(int[] counts) {
+        double[] values = new double[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            values[i] = counts[i];
+        }
+        return values;
+    }
+
+    /**
+     * Sélection en ligne des attributs informatifs : conserve les k meilleurs attributs selon le gain
+     * d'information incrémental et/ou ceux dont le gain atteint un seuil. Les attributs élagués comme
+     * dégénérés ne sont pas candidats. Au moins le meilleur attribut est toujours conservé.
+     *
+     * @param topK Nombre maximal d'attributs conservés (0 = pas de limite)
+     * @param minGain Gain d'information minimal (0 = pas de seuil)
+     * @return Le sous-ensemble d'attributs retenu
+     */
+    public Set<String> selectInformativeAttributes(int topK, double minGain) {
+        List<Map.Entry<String, Double>> ranked = new ArrayList<>();
+        for (String attribute : contingency.keySet()) {
+            if (isPrunedAsDegenerate(attribute)) {
+                continue;
+            }
+            ranked.add(new AbstractMap.SimpleEntry<>(attribute, getInformationGain(attribute)));
+        }
+        ranked.sort((a, b) -> {
+            int cmp = Double.compare(b.getValue(), a.getValue());
+            return cmp != 0 ? cmp : a.getKey().compareTo(b.getKey());
+        });
+
+        Set<String> selected = new HashSet<>();
+        for (Map.Entry<String, Double> entry : ranked) {
+            if (topK > 0 && selected.size() >= topK) break;
+            if (entry.getValue() < minGain && !selected.isEmpty()) break;
+            selected.add(entry.getKey());
+        }
+        this.selectedAttributes = selected;
+        modCount++;
+        return selected;
+    }
+
+    /**
+     * Désactive la sélection en ligne : tous les attributs non dégénérés redeviennent actifs.
+     */
+    public void clearAttributeSelection() {
+        this.selectedAttributes = null;
+        modCount++;
+    }
+
+    private boolean isPrunedAsDegenerate(String attribute) {
+        return pruneDegenerateAttributes && !restoredAttributes.contains(attribute) && isDegenerateAttribute(attribute);
+    }
+
+    /**
+     * Active l'élagage des attributs dégénérés : un attribut dont la valeur dominante couvre au moins
+     * la fraction donnée des instances est exclu des intentions, des règles et du calcul des scores.
+     * Le statut est réévalué à partir des comptes courants, un attribut qui cesse d'être constant
+     * est donc automatiquement réintégré.
+     *
+     * @param enabled true pour activer l'élagage
+     * @param threshold Fraction couverte par la valeur dominante (1.0 = strictement constant)
+     */
+    public void setDegenerateAttributePruning(boolean enabled, double threshold) {
+        this.pruneDegenerateAttributes = enabled;
+        this.degenerateThreshold = threshold;
+        modCount++;
+    }
+
+    /**
+     * Fait hériter ce contexte du filtre d'attributs d'un autre contexte (typiquement le contexte
+     * complet pour un contexte échantillonné), afin que les décisions reposent sur toute la fenêtre.
+     *
+     * @param source Le contexte de référence, ou null pour utiliser ce contexte
+     */
+    public void inheritAttributeFilter(NominalContext source) {
+        this.attributeFilterSource = source;
+    }
+
+    /**
+     * Réintègre manuellement un attribut, même s'il est détecté comme dégénéré.
+     *
+     * @param attribute Le nom de l'attribut
+     */
+    public void restoreAttribute(String attribute) {
+        restoredAttributes.add(attribute);
+        modCount++;
+    }
+
+    /**
+     * Annule les réintégrations manuelles.
+     */
+    public void clearRestoredAttributes() {
+        restoredAttributes.clear();
+        modCount++;
+    }
+
+    /**
+     * Indique si un attribut est constant ou quasi constant dans le contexte courant.
+     *
+     * @param attribute Le nom de l'attribut
+     * @return true si sa valeur dominante couvre au moins le seuil de dégénérescence
+     */
+    public boolean isDegenerateAttribute(String attribute) {
+        int n = instances.size();
+        Map<String, Set<Integer>> valueMap = deltaIndex.get(attribute);
+        if (n == 0 || valueMap == null || valueMap.isEmpty()) {
+            return false;
+        }
+        int dominant = 0;
+        for (Set<Integer> indices : valueMap.values()) {
+            dominant = Math.max(dominant, indices.size());
+        }
+        return dominant >= degenerateThreshold * n;
+    }
+
+    /**
+     * Indique si un attribut participe aux intentions, aux règles et aux scores
+     * (ni élagué comme dégénéré, ni écarté par la sélection en ligne).
+     *
+     * @param attribute Le nom de l'attribut
+     * @return false si l'attribut est élagué
+     */
+    public boolean isAttributeActive(String attribute) {
+        if (attributeFilterSource != null) {
+            return attributeFilterSource.isAttributeActive(attribute);
+        }
+        return !getInactiveAttributes().contains(attribute);
+    }
+
+    /**
+     * @return Les attributs actuellement exclus (recalculés après chaque modification du contexte)
+     */
+    public Set<String> getInactiveAttributes() {
+        if (attributeFilterSource != null) {
+            return attributeFilterSource.getInactiveAttributes();
+        }
+        if (inactiveAttributesCache == null || inactiveAttributesVersion != modCount) {
+            Set<String> inactive = new HashSet<>();
+            for (String attribute : deltaIndex.keySet()) {
+                boolean deselected = selectedAttributes != null && !selectedAttributes.contains(attribute)
+                        && !restoredAttributes.contains(attribute);
+                if (deselected || isPrunedAsDegenerate(attribute)) {
+                    inactive.add(attribute);
+                }
+            }
+            inactiveAttributesCache = Collections.unmodifiableSet(inactive);
+            inactiveAttributesVersion = modCount;
+        }
+        return inactiveAttributesCache;
     }
 
     /**
@@ -0,0 +1,239 @@
+package com.lamsili.canc.rules;
+
+import com.yahoo.labs.samoa.instances.Instance;
+
+import java.util.*;
+
+/**
+ * Diagramme de Hasse des concepts portés par les règles : chaque nœud regroupe les règles dont la
+ * prémisse évaluée (l'intention du concept d'origine, restreinte aux attributs actifs) est identique,
+ * et les arcs relient un nœud à ses couvertures immédiates par inclusion d'intention.
+ *
+ * La prédiction descend depuis le sommet (intention vide) en ne suivant que les enfants dont
+ * l'instance satisfait l'intention : un sous-treillis non satisfait n'est jamais visité. Les nœuds
+ * satisfaits sans enfant satisfait sont les concepts les plus spécifiques qui votent.
+ *
+ * La relation de couverture est tenue à jour à l'ajout et au retrait des règles (O(nœuds) par
+ * intention insérée ou retirée). Les nœuds étant indexés par prémisse évaluée, le diagramme doit
+ * être reconstruit lorsque la restriction aux attributs actifs change.
+ */
+public class ConceptHasseDiagram {
+
+    /**
+     * Nœud du diagramme : une intention et les règles qui la portent.
+     */
+    private static final class Node {
+        final Set<Map.Entry<String, String>> intent;
+        final List<Rule> rules = new ArrayList<>();
+        final List<Node> parents = new ArrayList<>();
+        final List<Node> children = new ArrayList<>();
+
+        Node(Set<Map.Entry<String, String>> intent) {
+            this.intent = intent;
+        }
+
+        /**
+         * Toutes les règles du nœud ont la même prémisse évaluée : la première suffit pour tester l'instance.
+         */
+        boolean matches(Instance instance) {
+            return rules.get(0).appliesTo(instance);
+        }
+
+        /**
+         * @return true si l'intention du nœud contient strictement celle de l'autre nœud
+         */
+        boolean strictlyBelow(Node other) {
+            return other.intent.size() < intent.size() && intent.containsAll(other.intent);
+        }
+
+        void link(Node child) {
+            children.add(child);
+            child.parents.add(this);
+        }
+
+        void unlink(Node child) {
+            children.remove(child);
+            child.parents.remove(this);
+        }
+    }
+
+    private final Node top = new Node(Collections.emptySet());
+    private final Map<Set<Map.Entry<String, String>>, Node> byIntent = new LinkedHashMap<>();
+
+    /**
+     * Construit le diagramme à partir des règles (voir addAll).
+     *
+     * @param rules Règles du modèle
+     */
+    public ConceptHasseDiagram(List<Rule> rules) {
+        addAll(rules);
+    }
+
+    /**
+     * Ajoute des règles : une prémisse nouvelle devient un nœud inséré entre ses couvertures
+     * inférieures et supérieures. Une règle dont la prémisse évaluée est vide de conditions actives
+     * ne s'applique jamais et n'est pas indexée.
+     */
+    public void addAll(Collection<Rule> added) {
+        for (Rule rule : added) {
+            Set<Map.Entry<String, String>> intent = intentOf(rule);
+            if (intent == null) continue;
+            Node node = intent.isEmpty() ? top : byIntent.get(intent);
+            if (node == null) {
+                node = new Node(intent);
+                insert(node);
+                byIntent.put(intent, node);
+            }
+            node.rules.add(rule);
+        }
+    }
+
+    /**
+     * Retire toutes les occurrences des règles données (égalité par valeur, comme List.removeIf(contains)) ;
+     * un nœud qui ne porte plus de règle est retiré et ses parents sont reliés à ses enfants.
+     * Chaque nœud touché n'est filtré qu'une fois, contre un ensemble haché des règles retirées.
+     */
+    public void removeAll(Collection<Rule> removed) {
+        Set<Rule> removedSet = removed instanceof Set ? (Set<Rule>) removed : new HashSet<>(removed);
+        Set<Node> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Rule rule : removedSet) {
+            Set<Map.Entry<String, String>> intent = intentOf(rule);
+            if (intent == null) continue;
+            Node node = intent.isEmpty() ? top : byIntent.get(intent);
+            if (node == null || !touched.add(node) || !node.rules.removeIf(removedSet::contains)) continue;
+            if (node.rules.isEmpty() && node != top) {
+                byIntent.remove(intent);
+                detach(node);
+            }
+        }
+    }
+
+    private static Set<Map.Entry<String, String>> intentOf(Rule rule) {
+        Map<String, String> evaluated = rule.getEvaluatedConditions();
+        return evaluated == null ? null : new HashSet<>(evaluated.entrySet());
+    }
+
+    /**
+     * Insère un nœud : ses parents sont les intentions incluses maximales (le sommet à défaut), ses
+     * enfants les intentions englobantes minimales ; les arcs parent-enfant qu'il intercale sont retirés.
+     */
+    private void insert(Node node) {
+        List<Node> generalizations = new ArrayList<>();
+        List<Node> specializations = new ArrayList<>();
+        for (Node other : byIntent.values()) {
+            if (node.strictlyBelow(other)) {
+                generalizations.add(other);
+            } else if (other.strictlyBelow(node)) {
+                specializations.add(other);
+            }
+        }
+        List<Node> parents = new ArrayList<>();
+        for (Node candidate : generalizations) {
+            boolean maximal = true;
+            for (Node other : generalizations) {
+                if (other.strictlyBelow(candidate)) {
+                    maximal = false;
+                    break;
+                }
+            }
+            if (maximal) parents.add(candidate);
+        }
+        if (parents.isEmpty()) parents.add(top);
+        List<Node> children = new ArrayList<>();
+        for (Node candidate : specializations) {
+            boolean minimal = true;
+            for (Node other : specializations) {
+                if (candidate.strictlyBelow(other)) {
+                    minimal = false;
+                    break;
+                }
+            }
+            if (minimal) children.add(candidate);
+        }
+
+        for (Node parent : parents) {
+            for (Node child : children) {
+                if (parent.children.contains(child)) parent.unlink(child);
+            }
+            parent.link(node);
+        }
+        for (Node child : children) {
+            node.link(child);
+        }
+    }
+
+    /**
+     * Retire un nœud : chaque parent est relié aux enfants du nœud qu'il ne couvre pas déjà par un
+     * autre chemin.
+     */
+    private void detach(Node node) {
+        List<Node> parents = new ArrayList<>(node.parents);
+        List<Node> children = new ArrayList<>(node.children);
+        for (Node parent : parents) parent.unlink(node);
+        for (Node child : children) node.unlink(child);
+        for (Node parent : parents) {
+            for (Node child : children) {
+                boolean reachable = false;
+                for (Node sibling : parent.children) {
+                    if (child.intent.containsAll(sibling.intent)) {
+                        reachable = true;
+                        break;
+                    }
+                }
+                if (!reachable) parent.link(child);
+            }
+        }
+    }
+
+    /**
+     * Descend le diagramme et retourne les règles des concepts les plus spécifiques satisfaits.
+     *
+     * @param instance L'instance à classer
+     * @return Les règles votantes (vide si l'instance n'est couverte par aucun concept)
+     */
+    public List<Rule> mostSpecificRules(Instance instance) {
+        List<Rule> result = new ArrayList<>();
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Node> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(top);
+        visited.add(top);
+
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            boolean descended = false;
+            for (Node child : node.children) {
+                if (visited.contains(child)) {
+                    // Déjà atteint par un autre parent : l'instance le satisfait
+                    descended = true;
+                    continue;
+                }
+                if (failed.contains(child)) {
+                    continue;
+                }
+                if (child.matches(instance)) {
+                    visited.add(child);
+                    stack.push(child);
+                    descended = true;
+                } else {
+                    failed.add(child);
+                }
+            }
+            if (!descended && node != top) {
+                result.addAll(node.rules);
+            }
+        }
+        // Règles sans condition : le sommet vote lorsqu'aucun concept plus spécifique n'est satisfait
+        if (result.isEmpty()) {
+            result.addAll(top.rules);
+        }
+        return result;
+    }
+
+    /**
+     * @return Nombre de nœuds (intentions distinctes), sommet exclu
+     */
+    public int size() {
+        return byIntent.size();
+    }
+}
@@ -0,0 +1,63 @@
+package com.lamsili.canc.rules;
+
+/**
+ * Politiques d'éviction des concepts lorsque le modèle dépasse son budget.
+ * Chaque politique attribue un score de rétention : les concepts de plus faible score sont évincés en premier.
+ */
+public enum EvictionPolicy {
+    /** Moins récemment utilisé : dernier vote (ou création si le concept n'a jamais voté). */
+    LRU {
+        @Override
+        public double retentionScore(UsageTracker.UsageStats usage, double weight, long now) {
+            return usage.getLastActive();
+        }
+    },
+    /** Moins fréquemment utilisé : nombre de votes, puis ancienneté du dernier vote. */
+    LFU {
+        @Override
+        public double retentionScore(UsageTracker.UsageStats usage, double weight, long now) {
+            return usage.getHits();
+        }
+    },
+    /** Plus faible poids : somme des poids des règles du concept. */
+    LOWEST_WEIGHT {
+        @Override
+        public double retentionScore(UsageTracker.UsageStats usage, double weight, long now) {
+            return weight;
+        }
+    },
+    /** Durée de vie : un concept sans vote depuis plus de TTL instances expire, même sous le budget. */
+    TTL {
+        @Override
+        public double retentionScore(UsageTracker.UsageStats usage, double weight, long now) {
+            return usage.getLastActive();
+        }
+
+        @Override
+        public boolean expires() {
+            return true;
+        }
+    },
+    /** Plus faible contribution aux votes corrects : somme des poids votés pour la classe réelle. */
+    LEAST_CORRECT {
+        @Override
+        public double retentionScore(UsageTracker.UsageStats usage, double weight, long now) {
+            return usage.getCorrectContribution();
+        }
+    };
+
+    /**
+     * @param usage Statistiques d'utilisation du concept
+     * @param weight Somme des poids des règles du concept
+     * @param now Nombre d'instances vues
+     * @return Score de rétention (les plus faibles sont évincés en premier)
+     */
+    public abstract double retentionScore(UsageTracker.UsageStats usage, double weight, long now);
+
+    /**
+     * @return true si la politique évince aussi les concepts inactifs depuis plus que la durée de vie
+     */
+    public boolean expires() {
+        return false;
+    }
+}
@@ -0,0 +1,142 @@
+package com.lamsili.canc.rules;
+
+import com.lamsili.canc.fca.closure.ClosureOperator.AttributeEvalMethod;
+import com.lamsili.canc.fca.closure.ClosureOperator.ValueEvalMethod;
+import com.lamsili.canc.fca.concept.ExtentChunkPool;
+import com.lamsili.canc.fca.concept.IntentCodec;
+import com.yahoo.labs.samoa.instances.InstancesHeader;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Configuration propre à un modèle CANC : taille du contexte pour le support des règles, ordre
+ * d'affichage des attributs, méthodes d'évaluation, activation du débogage, dictionnaire des couples
+ * des intentions et pool des blocs d'extensions partagées. Chaque learner possède la sienne et la
+ * transmet aux règles, à l'extracteur et au sélecteur de couples, de sorte que plusieurs learners
+ * (variantes, ensemble) peuvent apprendre en parallèle dans une même JVM sans partager d'état.
+ */
+public class ModelContext implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 2L;
+
+    private volatile int totalInstances = 100; // Par défaut à 100, mais sera mis à jour
+    // Ordre des attributs du jeu de données (liste immuable remplacée en bloc)
+    private volatile List<String> attributeOrder = Collections.emptyList();
+    private volatile AttributeEvalMethod attributeEvalMethod = AttributeEvalMethod.INFORMATION_GAIN;
+    private volatile ValueEvalMethod valueEvalMethod = ValueEvalMethod.ENTROPY;
+    private volatile boolean useDisjointRules = false;
+    private volatile boolean showPredictions = false;
+    private volatile boolean debugEnabled = false;
+    // Dictionnaire des couples des intentions, sérialisé avec le modèle (concepts, index et treillis le partagent)
+    private final IntentCodec intentCodec = new IntentCodec();
+    // Blocs canoniques des extensions partagées (-S), recréé après désérialisation
+    private transient ExtentChunkPool extentChunkPool;
+
+    /**
+     * Définit le nombre total d'instances pour le calcul du support
+     *
+     * @param total Le nombre total d'instances
+     */
+    public void setTotalInstances(int total) {
+        this.totalInstances = total;
+    }
+
+    /**
+     * @return Nombre total d'instances utilisé pour calculer le support
+     */
+    public int getTotalInstances() {
+        return totalInstances;
+    }
+
+    /**
+     * Définit l'ordre des attributs (hors classe) à partir de l'en-tête des instances
+     *
+     * @param header L'en-tête des instances contenant les informations sur les attributs
+     */
+    public void setAttributeOrder(InstancesHeader header) {
+        List<String> order = new ArrayList<>();
+        for (int i = 0; i < header.numAttributes(); i++) {
+            if (i != header.classIndex()) {
+                order.add(header.attribute(i).name());
+            }
+        }
+        this.attributeOrder = Collections.unmodifiableList(order);
+    }
+
+    /**
+     * Réinitialise l'ordre des attributs
+     */
+    public void resetAttributeOrder() {
+        this.attributeOrder = Collections.emptyList();
+    }
+
+    /**
+     * @return Ordre des attributs du jeu de données (vide s'il n'est pas connu)
+     */
+    public List<String> getAttributeOrder() {
+        return attributeOrder;
+    }
+
+    public AttributeEvalMethod getAttributeEvalMethod() {
+        return attributeEvalMethod;
+    }
+
+    public void setAttributeEvalMethod(AttributeEvalMethod method) {
+        this.attributeEvalMethod = method;
+    }
+
+    public ValueEvalMethod getValueEvalMethod() {
+        return valueEvalMethod;
+    }
+
+    public void setValueEvalMethod(ValueEvalMethod method) {
+        this.valueEvalMethod = method;
+    }
+
+    public boolean isUseDisjointRules() {
+        return useDisjointRules;
+    }
+
+    public void setUseDisjointRules(boolean useDisjoint) {
+        this.useDisjointRules = useDisjoint;
+    }
+
+    public boolean isShowPredictions() {
+        return showPredictions;
+    }
+
+    public void setShowPredictions(boolean show) {
+        this.showPredictions = show;
+    }
+
+    /**
+     * @return true si les traces de débogage de ce modèle sont affichées
+     */
+    public boolean isDebugEnabled() {
+        return debugEnabled;
+    }
+
+    public void setDebugEnabled(boolean enable) {
+        this.debugEnabled = enable;
+    }
+
+    /**
+     * @return Le dictionnaire des couples attribut-valeur des intentions de ce modèle
+     */
+    public IntentCodec getIntentCodec() {
+        return intentCodec;
+    }
+
+    /**
+     * @return Le pool des blocs d'extensions partagées propre à ce modèle
+     */
+    public synchronized ExtentChunkPool getExtentChunkPool() {
+        if (extentChunkPool == null) {
+            extentChunkPool = new ExtentChunkPool();
+        }
+        return extentChunkPool;
+    }
+}
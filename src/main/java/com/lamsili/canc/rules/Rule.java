@@ -1,13 +1,20 @@
 package com.lamsili.canc.rules;
 
+import com.lamsili.canc.fca.concept.FormalConcept;
+import com.lamsili.canc.fca.context.NominalContext;
+
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import com.yahoo.labs.samoa.instances.Attribute;
 import com.yahoo.labs.samoa.instances.Instance;
-import com.yahoo.labs.samoa.instances.InstancesHeader;
+import com.yahoo.labs.samoa.instances.Instances;
 import java.io.Serializable;
 
 /**
@@ -25,13 +32,27 @@ public class Rule implements Serializable {
     private int premiseOccurrence; // |X| nombre d'instances satisfaisant les conditions (prémisse)
     private double supportRule;    // support règle = |X,C|/N
     private double confidence;
-    private static int totalInstances = 100; // Par défaut à 100, mais sera mis à jour
+    // Configuration du modèle propriétaire (taille du contexte, ordre d'affichage des attributs)
+    private final ModelContext model;
+
+    // Conditions effectivement évaluées par appliesTo lorsque la règle est restreinte aux attributs
+    // actifs (null = toutes les conditions)
+    private transient String[] activeAttributes;
+    private transient String[] activeValues;
+
+    // Attributs des conditions du plus sélectif au moins sélectif (null = ordre de la table)
+    private String[] selectivityOrder;
+    // Matcher compilé contre l'en-tête courant ; recompilé si l'en-tête ou les conditions évaluées changent
+    private transient volatile CompiledMatcher matcher;
 
-    // Liste statique pour stocker l'ordre des attributs tel qu'il apparaît dans le jeu de données
-    private static List<String> attributeOrder = new ArrayList<>();
+    // Histogramme des classes des instances du contexte couvertes par la prémisse évaluée, tenu à jour
+    // par le RuleIndex propriétaire ; valide tant que (propriétaire, époque) correspond
+    private transient int[] classCoverage;
+    private transient Object coverageOwner;
+    private transient long coverageEpoch;
 
     /**
-     * Constructor with weight and support
+     * Constructor with weight and support, for a rule outside any model (default configuration)
      *
      * @param conditions Map of rule conditions (attribute -> value)
      * @param predictedClass The class predicted by this rule
@@ -39,12 +60,26 @@ public class Rule implements Serializable {
      * @param occurance The number of instances covered by the rule
      */
     public Rule(Map<String, String> conditions, String predictedClass, double weight, int occurance) {
+        this(new ModelContext(), conditions, predictedClass, weight, occurance);
+    }
+
+    /**
+     * Constructor with weight and support
+     *
+     * @param model Configuration of the model owning this rule
+     * @param conditions Map of rule conditions (attribute -> value)
+     * @param predictedClass The class predicted by this rule
+     * @param weight The weight of the rule
+     * @param occurance The number of instances covered by the rule
+     */
+    public Rule(ModelContext model, Map<String, String> conditions, String predictedClass, double weight, int occurance) {
+        this.model = model;
         this.conditions = new HashMap<>(conditions);
         this.predictedClass = predictedClass;
         this.weight = weight;
         this.truePositiveCount = occurance; // sera recalculé plus tard
         this.premiseOccurrence = occurance; // initialement la taille de l'extent
-        this.supportRule = (double) occurance / totalInstances; // support règle
+        this.supportRule = (double) occurance / model.getTotalInstances(); // support règle
         this.confidence = 1.0; // Par défaut, confiance maximale
     }
 
@@ -55,6 +90,251 @@ public class Rule implements Serializable {
      * @return true if the instance satisfies all conditions
      */
     public boolean appliesTo(Instance instance) {
+        CompiledMatcher compiled = compiledFor(instance);
+        if (compiled != null) {
+            return compiled.matches(instance);
+        }
+        if (activeAttributes != null) {
+            return appliesToActive(instance);
+        }
+        return appliesToByName(instance);
+    }
+
+    /**
+     * Conditions compiled against a header: attribute indices and nominal value codes, in
+     * selectivity order. Immutable, so it can be shared between threads once published.
+     */
+    static final class CompiledMatcher {
+        final Instances header;
+        final int[] attributeIndices;
+        final int[] valueCodes;
+        final boolean neverMatches;
+        final int predictedClassIndex;
+
+        CompiledMatcher(Instances header, int[] attributeIndices, int[] valueCodes,
+                        boolean neverMatches, int predictedClassIndex) {
+            this.header = header;
+            this.attributeIndices = attributeIndices;
+            this.valueCodes = valueCodes;
+            this.neverMatches = neverMatches;
+            this.predictedClassIndex = predictedClassIndex;
+        }
+
+        boolean matches(Instance instance) {
+            if (neverMatches) {
+                return false;
+            }
+            for (int c = 0; c < attributeIndices.length; c++) {
+                // (int) NaN == 0 : une valeur manquante se lit comme la première valeur, comme en mode chaîne
+                if ((int) instance.value(attributeIndices[c]) != valueCodes[c]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Returns the matcher compiled for the instance's header, compiling it on first use.
+     *
+     * @return The matcher, or null if the instance has no header or a condition is not nominal
+     */
+    private CompiledMatcher compiledFor(Instance instance) {
+        Instances header = instance.dataset();
+        return header == null ? null : compiledFor(header);
+    }
+
+    /**
+     * @param header Header of the stream
+     * @return The matcher compiled against the header, or null if a condition is not nominal
+     */
+    CompiledMatcher compiledFor(Instances header) {
+        CompiledMatcher compiled = matcher;
+        if (compiled == null || compiled.header != header) {
+            compiled = compile(header);
+            if (compiled == null) {
+                return null;
+            }
+            matcher = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Compiles the evaluated conditions (all of them, or the active ones) against a header.
+     */
+    private CompiledMatcher compile(Instances header) {
+        String[] attrs;
+        String[] values;
+        if (activeAttributes != null) {
+            attrs = activeAttributes;
+            values = activeValues;
+            if (attrs.length == 0 && !conditions.isEmpty()) {
+                return new CompiledMatcher(header, new int[0], new int[0], true, classIndexIn(header));
+            }
+        } else {
+            attrs = new String[conditions.size()];
+            values = new String[conditions.size()];
+            int c = 0;
+            for (Map.Entry<String, String> condition : conditions.entrySet()) {
+                attrs[c] = condition.getKey();
+                values[c] = condition.getValue();
+                c++;
+            }
+        }
+
+        int[] attributeIndices = new int[attrs.length];
+        int[] valueCodes = new int[attrs.length];
+        boolean neverMatches = false;
+        int[] order = orderOf(attrs);
+        for (int c = 0; c < attrs.length; c++) {
+            int source = order[c];
+            int attrIndex = -1;
+            for (int i = 0; i < header.numAttributes(); i++) {
+                if (header.attribute(i).name().equals(attrs[source])) {
+                    attrIndex = i;
+                    break;
+                }
+            }
+            if (attrIndex == -1) {
+                neverMatches = true;
+                continue;
+            }
+            Attribute attribute = header.attribute(attrIndex);
+            if (!attribute.isNominal()) {
+                return null;
+            }
+            int code = attribute.indexOfValue(values[source]);
+            if (code < 0) {
+                neverMatches = true;
+            }
+            attributeIndices[c] = attrIndex;
+            valueCodes[c] = code;
+        }
+        return new CompiledMatcher(header, attributeIndices, valueCodes, neverMatches, classIndexIn(header));
+    }
+
+    /**
+     * Evaluation order of the conditions: selectivity order first, then the remaining ones.
+     */
+    private int[] orderOf(String[] attrs) {
+        int[] order = new int[attrs.length];
+        boolean[] placed = new boolean[attrs.length];
+        int n = 0;
+        if (selectivityOrder != null) {
+            for (String attribute : selectivityOrder) {
+                for (int c = 0; c < attrs.length; c++) {
+                    if (!placed[c] && attrs[c].equals(attribute)) {
+                        placed[c] = true;
+                        order[n++] = c;
+                        break;
+                    }
+                }
+            }
+        }
+        for (int c = 0; c < attrs.length; c++) {
+            if (!placed[c]) {
+                order[n++] = c;
+            }
+        }
+        return order;
+    }
+
+    private int classIndexIn(Instances header) {
+        if (predictedClass == null || header.classIndex() < 0) {
+            return -1;
+        }
+        return header.classAttribute().indexOfValue(predictedClass);
+    }
+
+    /**
+     * Orders the conditions from the rarest to the most frequent value in the context, so that a
+     * non-matching instance is rejected on the first comparisons.
+     *
+     * @param context Context used to count the instances carrying each condition value
+     */
+    public void orderConditionsBySelectivity(NominalContext context) {
+        List<Map.Entry<String, String>> sorted = new ArrayList<>(conditions.entrySet());
+        sorted.sort(Comparator.<Map.Entry<String, String>>comparingInt(
+                        condition -> context.deltaSize(condition.getKey(), condition.getValue()))
+                .thenComparing(Map.Entry::getKey));
+        String[] order = new String[sorted.size()];
+        for (int c = 0; c < order.length; c++) {
+            order[c] = sorted.get(c).getKey();
+        }
+        this.selectivityOrder = order;
+        this.matcher = null;
+    }
+
+    /**
+     * Computes the instances of the context covered by the evaluated premise by AND-ing the posting
+     * bitmaps of its conditions, rarest value first so that the intersection shrinks quickly.
+     *
+     * @param context Context whose bitmaps are read
+     * @return The covered instance indices (new bitmap)
+     */
+    public BitSet coveredInstances(NominalContext context) {
+        String[] attrs;
+        String[] values;
+        if (activeAttributes != null) {
+            if (activeAttributes.length == 0 && !conditions.isEmpty()) {
+                return new BitSet();
+            }
+            attrs = activeAttributes;
+            values = activeValues;
+        } else {
+            attrs = conditions.keySet().toArray(new String[0]);
+            values = new String[attrs.length];
+            for (int c = 0; c < attrs.length; c++) {
+                values[c] = conditions.get(attrs[c]);
+            }
+        }
+
+        BitSet covered = null;
+        for (int c : orderOf(attrs)) {
+            BitSet posting = context.postingBitmap(attrs[c], values[c]);
+            if (posting == null) {
+                return new BitSet();
+            }
+            if (covered == null) {
+                covered = (BitSet) posting.clone();
+            } else {
+                covered.and(posting);
+            }
+            if (covered.isEmpty()) {
+                return covered;
+            }
+        }
+        if (covered == null) {
+            covered = new BitSet();
+            covered.set(0, context.getNumInstances());
+        }
+        return covered;
+    }
+
+    /**
+     * Returns the index of the predicted class in the instance's header (compiled, no string comparison).
+     *
+     * @param instance An instance of the stream
+     * @return The class index, or -1 if the predicted class is not a value of the class attribute
+     */
+    public int getPredictedClassIndex(Instance instance) {
+        CompiledMatcher compiled = compiledFor(instance);
+        if (compiled != null) {
+            return compiled.predictedClassIndex;
+        }
+        for (int i = 0; i < instance.numClasses(); i++) {
+            if (instance.attribute(instance.classIndex()).value(i).equals(predictedClass)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Name-based evaluation, used when the rule cannot be compiled against the instance's header.
+     */
+    private boolean appliesToByName(Instance instance) {
         for (Map.Entry<String, String> condition : conditions.entrySet()) {
             String attribute = condition.getKey();
             String expectedValue = condition.getValue();
@@ -84,6 +364,122 @@ public class Rule implements Serializable {
         return true;
     }
 
+    /**
+     * Evaluates only the conditions on active attributes.
+     * A rule whose conditions are all on inactive attributes no longer applies.
+     */
+    private boolean appliesToActive(Instance instance) {
+        if (activeAttributes.length == 0) {
+            return conditions.isEmpty();
+        }
+        for (int c = 0; c < activeAttributes.length; c++) {
+            int attrIndex = -1;
+            for (int i = 0; i < instance.numAttributes(); i++) {
+                if (instance.attribute(i).name().equals(activeAttributes[c])) {
+                    attrIndex = i;
+                    break;
+                }
+            }
+            if (attrIndex == -1) {
+                return false;
+            }
+            String actualValue = instance.attribute(attrIndex).value((int) instance.value(attrIndex));
+            if (!actualValue.equals(activeValues[c])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Restricts the matcher to the conditions on active attributes.
+     * The full premise is kept, so an attribute that becomes active again is evaluated again.
+     *
+     * @param inactiveAttributes Attributes currently excluded by pruning or feature selection
+     */
+    public void restrictToActiveAttributes(Set<String> inactiveAttributes) {
+        List<String> attrs = new ArrayList<>();
+        List<String> values = new ArrayList<>();
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            if (!inactiveAttributes.contains(condition.getKey())) {
+                attrs.add(condition.getKey());
+                values.add(condition.getValue());
+            }
+        }
+        this.activeAttributes = attrs.toArray(new String[0]);
+        this.activeValues = values.toArray(new String[0]);
+        this.matcher = null;
+        this.classCoverage = null;
+    }
+
+    /**
+     * @return true if appliesTo evaluates the conditions on active attributes rather than the full premise
+     */
+    public boolean hasAttributeRestriction() {
+        return activeAttributes != null;
+    }
+
+    /**
+     * Removes any restriction: all conditions are evaluated again.
+     */
+    public void clearAttributeRestriction() {
+        this.activeAttributes = null;
+        this.activeValues = null;
+        this.matcher = null;
+        this.classCoverage = null;
+    }
+
+    /**
+     * @return The conditions evaluated by appliesTo (all of them, or those on active attributes), or
+     *         null if the restriction leaves no condition of a non-empty premise (the rule never applies)
+     */
+    public Map<String, String> getEvaluatedConditions() {
+        if (activeAttributes == null) {
+            return new HashMap<>(conditions);
+        }
+        if (activeAttributes.length == 0 && !conditions.isEmpty()) {
+            return null;
+        }
+        Map<String, String> evaluated = new HashMap<>();
+        for (int c = 0; c < activeAttributes.length; c++) {
+            evaluated.put(activeAttributes[c], activeValues[c]);
+        }
+        return evaluated;
+    }
+
+    /**
+     * @return The class histogram of the covered instances if it is valid for this owner and epoch, or null
+     */
+    int[] coverageFor(Object owner, long epoch) {
+        return classCoverage != null && coverageOwner == owner && coverageEpoch == epoch ? classCoverage : null;
+    }
+
+    void setCoverage(Object owner, long epoch, int[] counts) {
+        this.classCoverage = counts;
+        this.coverageOwner = owner;
+        this.coverageEpoch = epoch;
+    }
+
+    /**
+     * Adds delta to the count of a class if the histogram is valid for this owner and epoch.
+     */
+    void updateCoverage(Object owner, long epoch, int classIdx, int delta) {
+        int[] counts = coverageFor(owner, epoch);
+        if (counts == null) return;
+        if (classIdx >= counts.length) {
+            counts = Arrays.copyOf(counts, classIdx + 1);
+            classCoverage = counts;
+        }
+        counts[classIdx] += delta;
+    }
+
+    /**
+     * @return The per-class counts of the context instances covered by the premise (copy), or null if not tracked
+     */
+    public int[] getClassCoverage() {
+        return classCoverage != null ? classCoverage.clone() : null;
+    }
+
     /**
      * @return The conditions of the rule
      */
@@ -91,6 +487,28 @@ public class Rule implements Serializable {
         return new HashMap<>(conditions);
     }
 
+    /**
+     * @return The number of conditions of the rule
+     */
+    public int getConditionCount() {
+        return conditions.size();
+    }
+
+    /**
+     * Checks the conditions against a concept's intent in place, without copying them.
+     *
+     * @param concept Formal concept
+     * @return true if every condition of the rule belongs to the concept's intent
+     */
+    public boolean conditionsWithin(FormalConcept concept) {
+        for (Map.Entry<String, String> condition : conditions.entrySet()) {
+            if (!concept.intentContains(condition.getKey(), condition.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return The predicted class
      */
@@ -118,7 +536,7 @@ public class Rule implements Serializable {
     public int getTruePositiveCount() { return truePositiveCount; }
     public void setTruePositiveCount(int tp) {
         this.truePositiveCount = tp;
-        this.supportRule = (double) tp / totalInstances;
+        this.supportRule = (double) tp / model.getTotalInstances();
     }
     public void setTruePositiveCountWithoutRecalculation(int tp) { this.truePositiveCount = tp; }
 
@@ -138,44 +556,10 @@ public class Rule implements Serializable {
     public void setConfidence(double confidence) { this.confidence = confidence; }
 
     /**
-     * Définit le nombre total d'instances pour le calcul du support
-     *
-     * @param total Le nombre total d'instances
-     */
-    public static void setTotalInstances(int total) {
-        totalInstances = total;
-    }
-
-    /**
-     * Retourne le nombre total d'instances utilisé pour calculer le support
-     *
-     * @return Nombre total d'instances
-     */
-    public static int getTotalInstances() {
-        return totalInstances;
-    }
-
-    /**
-     * Définit l'ordre des attributs à partir de l'en-tête des instances
-     * Cette méthode doit être appelée une fois lors de l'initialisation
-     *
-     * @param header L'en-tête des instances contenant les informations sur les attributs
-     */
-    public static void setAttributeOrder(InstancesHeader header) {
-        attributeOrder.clear();
-        // On parcourt tous les attributs sauf la classe (généralement le dernier)
-        for (int i = 0; i < header.numAttributes(); i++) {
-            if (i != header.classIndex()) {
-                attributeOrder.add(header.attribute(i).name());
-            }
-        }
-    }
-
-    /**
-     * Réinitialise l'ordre des attributs
+     * @return La configuration du modèle propriétaire de la règle
      */
-    public static void resetAttributeOrder() {
-        attributeOrder.clear();
+    public ModelContext getModelContext() {
+        return model;
     }
 
     @Override
@@ -187,6 +571,7 @@ public class Rule implements Serializable {
         boolean first = true;
 
         // Si l'ordre des attributs a été défini, l'utiliser
+        List<String> attributeOrder = model.getAttributeOrder();
         if (!attributeOrder.isEmpty()) {
             // D'abord, afficher les attributs qui suivent l'ordre du jeu de données
             for (String attribute : attributeOrder) {
@@ -253,5 +638,6 @@ public class Rule implements Serializable {
      */
     public void setPredictedClass(String predictedClass) {
         this.predictedClass = predictedClass;
+        this.matcher = null;
     }
 }
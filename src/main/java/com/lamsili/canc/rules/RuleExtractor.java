@@ -5,7 +5,10 @@ import com.lamsili.canc.fca.context.NominalContext;
 
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
 
 /**
  * Class responsible for extracting classification rules from
@@ -15,9 +18,72 @@ public class RuleExtractor implements Serializable {
     // Ajouter un serialVersionUID pour la stabilité de la sérialisation
     private static final long serialVersionUID = 1L;
 
+    // Configuration du modèle propriétaire, partagée avec les règles extraites
+    private final ModelContext model;
+
+    // Index tenant à jour la couverture des règles sur le contexte du modèle (null = recomptage)
+    private transient RuleIndex coverageIndex;
+
+    // Calcul parallèle des métriques : nombre de workers (0 = pool commun, 1 = séquentiel)
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final int LEAF_SIZE = 32;
+    private int metricsParallelism = 1;
+    // Pool dédié, créé au premier calcul parallèle et réutilisé ensuite (workers démons libérés après inactivité)
+    private transient ForkJoinPool metricsPool;
+
+    /**
+     * Extracteur autonome, avec sa propre configuration par défaut.
+     */
+    public RuleExtractor() {
+        this(new ModelContext());
+    }
+
+    /**
+     * @param model Configuration du modèle propriétaire des règles extraites
+     */
+    public RuleExtractor(ModelContext model) {
+        this.model = model;
+    }
+
+    /**
+     * @return La configuration du modèle propriétaire des règles extraites
+     */
+    public ModelContext getModelContext() {
+        return model;
+    }
+
+    /**
+     * @param parallelism Nombre de workers fork-join pour le calcul des métriques (0 = pool commun, 1 = séquentiel)
+     */
+    public void setMetricsParallelism(int parallelism) {
+        if (parallelism != metricsParallelism) {
+            shutdownMetricsPool();
+        }
+        this.metricsParallelism = parallelism;
+    }
+
+    /**
+     * Arrête le pool dédié au calcul des métriques ; il sera recréé au besoin.
+     */
+    public void shutdownMetricsPool() {
+        if (metricsPool != null) {
+            metricsPool.shutdown();
+            metricsPool = null;
+        }
+    }
+
+    /**
+     * Lit les vrais positifs dans les histogrammes de couverture maintenus par l'index.
+     *
+     * @param index Index des règles du modèle, ou null pour recompter à chaque calcul
+     */
+    public void trackCoverageWith(RuleIndex index) {
+        this.coverageIndex = index;
+    }
+
     /**
      * Extracts rules from a list of formal concepts and a nominal context.
-     * For each concept, the method finds the majority class in its extent
+     * For each concept, the method finds the majority class in its class histogram
      * and generates a rule.
      *
      * @param concepts List of formal concepts
@@ -30,13 +96,14 @@ public class RuleExtractor implements Serializable {
         int totalInstances = context.getNumInstances();
 
         for (FormalConcept concept : concepts) {
-            // Find the majority class in the extent
-            String majorityClass = findMajorityClass(concept.getExtent(), context);
+            // Find the majority class in the concept's class histogram
+            int majorityIndex = majorityClassOf(concept, context);
 
             // If no clear majority class, skip
-            if (majorityClass == null) {
+            if (majorityIndex < 0) {
                 continue;
             }
+            String majorityClass = context.getClassValue(majorityIndex);
 
             // Get the intent (attribute-value pairs) of the concept
             Set<Map.Entry<String, String>> intentPairs = concept.getIntent();
@@ -51,12 +118,13 @@ public class RuleExtractor implements Serializable {
                     int support = concept.getExtentSize();
 
                     // Create the rule with initial weight 1.0 and support
-                    Rule rule = new Rule(singleCondition, majorityClass, 1.0, support);
+                    Rule rule = new Rule(model, singleCondition, majorityClass, 1.0, support);
 
                     // Calculer et définir le poids comme le ratio de couverture (|extent| / |S|)
                     double weight = support / (double) totalInstances;
                     rule.setWeight(weight);
 
+                    rule.orderConditionsBySelectivity(context);
                     rules.add(rule);
                 }
             } else {
@@ -70,12 +138,13 @@ public class RuleExtractor implements Serializable {
                 int support = concept.getExtentSize();
 
                 // Create the rule with initial weight 1.0 and support
-                Rule rule = new Rule(conditions, majorityClass, 1.0, support);
+                Rule rule = new Rule(model, conditions, majorityClass, 1.0, support);
 
                 // Calculer et définir le poids comme le ratio de couverture (|extent| / |S|)
                 double weight = support / (double) totalInstances;
                 rule.setWeight(weight);
 
+                rule.orderConditionsBySelectivity(context);
                 rules.add(rule);
             }
         }
@@ -96,31 +165,75 @@ public class RuleExtractor implements Serializable {
         if (rules == null || rules.isEmpty()) return;
 
         int totalInstances = context.getNumInstances();
-        Rule.setTotalInstances(totalInstances);
-
-        for (Rule rule : rules) {
-            // Ne recalculer plus l'occurrence de la prémisse : elle correspond à la taille de l'extent du concept d'origine
-            int premiseOccurrence = rule.getPremiseOccurrence(); // |X|
-            int ruleOccurrence = 0; // |X,C|
-            if (totalInstances > 0) {
-                // On parcourt uniquement pour compter les vrais positifs (|X,C|)
-                for (int i = 0; i < totalInstances; i++) {
-                    Instance instance = context.getInstance(i);
-                    String actualClass = context.getInstanceClass(i);
-                    if (rule.appliesTo(instance) && actualClass != null && actualClass.equals(rule.getPredictedClass())) {
-                        ruleOccurrence++;
-                    }
-                }
+        model.setTotalInstances(totalInstances);
+        computeMetrics(rules, context, totalInstances);
+    }
+
+    /**
+     * Compte les vrais positifs (|X,C|) d'une règle dans son histogramme de couverture.
+     *
+     * @param rule Règle évaluée
+     * @param coverage Effectifs par classe des instances couvertes (voir coverageOf)
+     * @param context Contexte non vide
+     * @return Nombre d'instances couvertes de la classe prédite
+     */
+    private int truePositivesOf(Rule rule, int[] coverage, NominalContext context) {
+        int predictedClassIndex = rule.getPredictedClassIndex(context.getInstance(0));
+        return predictedClassIndex >= 0 && predictedClassIndex < coverage.length ? coverage[predictedClassIndex] : 0;
+    }
+
+    /**
+     * @return Effectifs par classe des instances couvertes par la règle (histogramme maintenu ou recalculé)
+     */
+    private int[] coverageOf(Rule rule, NominalContext context) {
+        int[] coverage = coverageIndex != null ? coverageIndex.coverageOf(rule, context) : null;
+        if (coverage == null) {
+            coverage = classCoverageOf(rule.coveredInstances(context), context);
+            if (coverageIndex != null) {
+                coverageIndex.storeCoverage(rule, context, coverage);
             }
-            // Mettre à jour uniquement ce qui dépend de |X,C|
-            rule.setTruePositiveCountWithoutRecalculation(ruleOccurrence);
-            double support = totalInstances > 0 ? (double) ruleOccurrence / totalInstances : 0.0;
-            rule.setSupportRuleWithoutRecalculation(support);
-            double confidence = premiseOccurrence > 0 ? (double) ruleOccurrence / premiseOccurrence : 0.0;
-            rule.setConfidence(confidence);
-            double weight = support * confidence;
-            rule.setWeight(weight);
         }
+        return coverage;
+    }
+
+    /**
+     * Fusionne dans la règle canonique une règle redécouverte de même prémisse : l'occurrence de la
+     * prémisse retenue est la plus grande des deux, une classe divergente est arbitrée par
+     * l'histogramme de couverture de la prémisse, puis les métriques sont recalculées.
+     *
+     * @param canonical Règle conservée
+     * @param duplicate Règle redécouverte (abandonnée)
+     * @param context Contexte nominal
+     */
+    public void mergeRule(Rule canonical, Rule duplicate, NominalContext context) {
+        canonical.setPremiseOccurrenceWithoutRecalculation(
+                Math.max(canonical.getPremiseOccurrence(), duplicate.getPremiseOccurrence()));
+        if (context.getNumInstances() == 0) return;
+        if (!Objects.equals(canonical.getPredictedClass(), duplicate.getPredictedClass())) {
+            int resolved = majorityOf(coverageOf(canonical, context));
+            canonical.setPredictedClass(resolved >= 0 ? context.getClassValue(resolved) : duplicate.getPredictedClass());
+        }
+        updateRuleMetrics(Collections.singletonList(canonical), context);
+    }
+
+    /**
+     * @param covered Instances couvertes par une prémisse
+     * @param context Contexte non vide
+     * @return Effectifs par classe des instances couvertes
+     */
+    private int[] classCoverageOf(BitSet covered, NominalContext context) {
+        int[] coverage = new int[context.getInstance(0).numClasses()];
+        if (covered.isEmpty()) return coverage;
+        BitSet scratch = new BitSet();
+        for (int c = 0; c < coverage.length; c++) {
+            BitSet members = context.classBitmap(c);
+            if (members == null) continue;
+            scratch.clear();
+            scratch.or(covered);
+            scratch.and(members);
+            coverage[c] = scratch.cardinality();
+        }
+        return coverage;
     }
 
     /**
@@ -135,24 +248,97 @@ public class RuleExtractor implements Serializable {
             return;
         }
         int totalInstances = context.getNumInstances();
-        Rule.setTotalInstances(totalInstances);
-        for (Rule rule : applicableRules) {
-            int premiseOccurrence = rule.getPremiseOccurrence(); // conservé
-            int ruleOccurrence = 0; // |X,C|
-            for (int i = 0; i < totalInstances; i++) {
-                Instance instance = context.getInstance(i);
-                String actualClass = context.getInstanceClass(i);
-                if (rule.appliesTo(instance) && actualClass != null && actualClass.equals(rule.getPredictedClass())) {
-                    ruleOccurrence++;
+        model.setTotalInstances(totalInstances);
+        computeMetrics(applicableRules, context, totalInstances);
+    }
+
+    /**
+     * Calcule les métriques d'une liste de règles, en parallèle au-delà de PARALLEL_THRESHOLD règles.
+     * Les règles sont réparties par tranches entre les workers ; chaque règle ne dépend que du
+     * contexte (lu sans modification) et de son propre état, donc le résultat est identique au
+     * calcul séquentiel.
+     */
+    private void computeMetrics(List<Rule> rules, NominalContext context, int totalInstances) {
+        if (metricsParallelism == 1 || rules.size() < PARALLEL_THRESHOLD) {
+            for (Rule rule : rules) {
+                computeMetrics(rule, context, totalInstances);
+            }
+            return;
+        }
+        // Synchronise le suivi de couverture avant le partage : les workers ne font plus que le lire
+        if (coverageIndex != null) {
+            coverageIndex.tracksCoverageOf(context);
+        }
+        MetricsTask task = new MetricsTask(this, rules, 0, rules.size(), context, totalInstances);
+        if (metricsParallelism <= 0) {
+            ForkJoinPool.commonPool().invoke(task);
+        } else {
+            if (metricsPool == null) {
+                metricsPool = new ForkJoinPool(metricsParallelism);
+            }
+            metricsPool.invoke(task);
+        }
+    }
+
+    private void computeMetrics(Rule rule, NominalContext context, int totalInstances) {
+        // Ne recalculer plus l'occurrence de la prémisse : elle correspond à la taille de l'extent du concept d'origine
+        int premiseOccurrence = rule.getPremiseOccurrence(); // |X|
+        int ruleOccurrence = 0; // |X,C|
+        if (totalInstances > 0) {
+            int[] coverage = coverageOf(rule, context);
+            ruleOccurrence = truePositivesOf(rule, coverage, context);
+            if (rule.hasAttributeRestriction()) {
+                // Prémisse restreinte aux attributs actifs : |X| est celui de la prémisse évaluée, pas l'extent
+                premiseOccurrence = 0;
+                for (int count : coverage) {
+                    premiseOccurrence += count;
                 }
+                rule.setPremiseOccurrenceWithoutRecalculation(premiseOccurrence);
             }
-            rule.setTruePositiveCountWithoutRecalculation(ruleOccurrence);
-            double support = totalInstances > 0 ? (double) ruleOccurrence / totalInstances : 0.0;
-            rule.setSupportRuleWithoutRecalculation(support);
-            double confidence = premiseOccurrence > 0 ? (double) ruleOccurrence / premiseOccurrence : 0.0;
-            rule.setConfidence(confidence);
-            double weight = support * confidence;
-            rule.setWeight(weight);
+        }
+        // Mettre à jour uniquement ce qui dépend de |X,C|
+        rule.setTruePositiveCountWithoutRecalculation(ruleOccurrence);
+        double support = totalInstances > 0 ? (double) ruleOccurrence / totalInstances : 0.0;
+        rule.setSupportRuleWithoutRecalculation(support);
+        double confidence = premiseOccurrence > 0 ? (double) ruleOccurrence / premiseOccurrence : 0.0;
+        rule.setConfidence(confidence);
+        double weight = support * confidence;
+        rule.setWeight(weight);
+    }
+
+    /**
+     * Tranche [from, to) de la liste de règles, divisée en deux tant qu'elle dépasse LEAF_SIZE règles.
+     */
+    private static final class MetricsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RuleExtractor extractor;
+        private final transient List<Rule> rules; // Tâche jamais sérialisée
+        private final int from;
+        private final int to;
+        private final NominalContext context;
+        private final int totalInstances;
+
+        MetricsTask(RuleExtractor extractor, List<Rule> rules, int from, int to, NominalContext context, int totalInstances) {
+            this.extractor = extractor;
+            this.rules = rules;
+            this.from = from;
+            this.to = to;
+            this.context = context;
+            this.totalInstances = totalInstances;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                for (int i = from; i < to; i++) {
+                    extractor.computeMetrics(rules.get(i), context, totalInstances);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MetricsTask(extractor, rules, from, middle, context, totalInstances),
+                    new MetricsTask(extractor, rules, middle, to, context, totalInstances));
         }
     }
 
@@ -182,55 +368,81 @@ public class RuleExtractor implements Serializable {
                                             List<Rule> allRules, NominalContext context,
                                             List<FormalConcept> modifiedConceptsOut,
                                             List<Rule> modifiedRulesOut) {
+        List<FormalConcept> updatedConcepts = addInstanceToConcepts(concepts, instance, instanceIndex, context);
+        Set<Rule> affectedRules = updateRulesForConcepts(updatedConcepts, allRules, context);
+        collectModified(updatedConcepts, affectedRules, modifiedConceptsOut, modifiedRulesOut);
+        return updatedConcepts.size();
+    }
+
+    /**
+     * Variante indexée : les règles à mettre à jour sont recherchées dans l'index des règles du modèle
+     * (voir updateRulesForConcepts), de sorte que le coût par instance ne dépend pas du nombre total de règles.
+     */
+    public int updateConceptsWithNewInstance(List<FormalConcept> concepts, Instance instance, int instanceIndex,
+                                            RuleIndex ruleIndex, NominalContext context,
+                                            List<FormalConcept> modifiedConceptsOut,
+                                            List<Rule> modifiedRulesOut) {
+        List<FormalConcept> updatedConcepts = addInstanceToConcepts(concepts, instance, instanceIndex, context);
+        Set<Rule> affectedRules = updateRulesForConcepts(updatedConcepts, ruleIndex, instance.dataset(), context);
+        collectModified(updatedConcepts, affectedRules, modifiedConceptsOut, modifiedRulesOut);
+        return updatedConcepts.size();
+    }
+
+    private static void collectModified(List<FormalConcept> updatedConcepts, Set<Rule> affectedRules,
+                                        List<FormalConcept> modifiedConceptsOut, List<Rule> modifiedRulesOut) {
+        if (modifiedConceptsOut != null) {
+            modifiedConceptsOut.addAll(updatedConcepts);
+        }
+        if (modifiedRulesOut != null) {
+            modifiedRulesOut.addAll(affectedRules);
+        }
+    }
+
+    /**
+     * Ajoute l'instance aux concepts dont elle satisfait l'intention.
+     *
+     * @return Les concepts dont l'extension a changé
+     */
+    private List<FormalConcept> addInstanceToConcepts(List<FormalConcept> concepts, Instance instance,
+                                                      int instanceIndex, NominalContext context) {
         if (concepts == null || concepts.isEmpty()) {
             System.out.println("[MAJ CONCEPTS] Aucune liste de concepts fournie.");
-            return 0;
+            return new ArrayList<>();
         }
         Map<String, String> instanceAttrValues = new HashMap<>();
         for (int a = 0; a < instance.numAttributes(); a++) {
             if (a == instance.classIndex() || !instance.attribute(a).isNominal()) continue;
             instanceAttrValues.put(instance.attribute(a).name(), instance.attribute(a).value((int) instance.value(a)));
         }
-        int updatedCount = 0;
         List<FormalConcept> updatedConcepts = new ArrayList<>();
         for (FormalConcept concept : concepts) {
-            boolean intentIncluded = true;
-            for (Map.Entry<String,String> intentPair : concept.getIntent()) {
-                String v = instanceAttrValues.get(intentPair.getKey());
-                if (v == null || !v.equals(intentPair.getValue())) { intentIncluded = false; break; }
-            }
-            if (intentIncluded && !concept.getExtent().contains(instanceIndex)) {
-                concept.addToExtent(instanceIndex);
+            if (concept.intentSatisfiedBy(instanceAttrValues) && concept.addInstance(instanceIndex,
+                    context.getInstanceClassIndex(instanceIndex), context.getInstanceWeight(instanceIndex))) {
                 updatedConcepts.add(concept);
-                updatedCount++;
             }
         }
+        return updatedConcepts;
+    }
+
+    /**
+     * Propage aux règles les changements d'extension d'un ensemble de concepts :
+     * classe majoritaire, occurrence de la prémisse (|X|) et métriques des seules règles couvertes.
+     *
+     * @param updatedConcepts Concepts dont l'extension a changé
+     * @param allRules Liste complète des règles
+     * @param context Contexte nominal
+     * @return Les règles affectées
+     */
+    public Set<Rule> updateRulesForConcepts(List<FormalConcept> updatedConcepts, List<Rule> allRules,
+                                            NominalContext context) {
         Set<Rule> affectedRules = new HashSet<>();
         if (!updatedConcepts.isEmpty() && allRules != null && !allRules.isEmpty()) {
-            Map<FormalConcept,String> majorityCache = new HashMap<>();
-            for (FormalConcept c : updatedConcepts) {
-                majorityCache.put(c, findMajorityClass(c.getExtent(), context));
-            }
+            String[] majorities = majoritiesOf(updatedConcepts, context);
             for (Rule rule : allRules) {
-                Map<String,String> conds = rule.getConditions();
-                for (FormalConcept c : updatedConcepts) {
-                    boolean covered = true;
-                    for (Map.Entry<String,String> cond : conds.entrySet()) {
-                        boolean found = false;
-                        for (Map.Entry<String,String> intentPair : c.getIntent()) {
-                            if (intentPair.getKey().equals(cond.getKey()) && intentPair.getValue().equals(cond.getValue())) { found = true; break; }
-                        }
-                        if (!found) { covered = false; break; }
-                    }
-                    if (covered) {
-                        String newMaj = majorityCache.get(c);
-                        if (newMaj != null && !newMaj.equals(rule.getPredictedClass())) {
-                            rule.setPredictedClass(newMaj);
-                        }
-                        // Mise à jour de l'occurrence (|X|) si le concept correspond exactement aux conditions de la règle
-                        if (c.getIntent().size() == conds.size()) {
-                            rule.setPremiseOccurrenceWithoutRecalculation(c.getExtentSize());
-                        }
+                for (int i = 0; i < majorities.length; i++) {
+                    FormalConcept c = updatedConcepts.get(i);
+                    if (rule.conditionsWithin(c)) {
+                        applyConceptChange(rule, c, majorities[i]);
                         affectedRules.add(rule);
                         break;
                     }
@@ -240,52 +452,95 @@ public class RuleExtractor implements Serializable {
         if (!affectedRules.isEmpty()) {
             updateRuleMetrics(new ArrayList<>(affectedRules), context);
         }
-        if (modifiedConceptsOut != null) {
-            modifiedConceptsOut.addAll(updatedConcepts);
+        return affectedRules;
+    }
+
+    /**
+     * Variante indexée de updateRulesForConcepts : les règles couvertes par chaque concept sont
+     * recherchées dans le trie en suivant les seuls couples de son intention, au lieu de parcourir
+     * toutes les règles. Comme dans la version par liste, une règle couverte par plusieurs concepts
+     * prend la classe majoritaire du premier d'entre eux.
+     *
+     * @param updatedConcepts Concepts dont l'extension a changé
+     * @param ruleIndex Index des règles du modèle
+     * @param header En-tête du flux
+     * @param context Contexte nominal
+     * @return Les règles affectées
+     */
+    public Set<Rule> updateRulesForConcepts(List<FormalConcept> updatedConcepts, RuleIndex ruleIndex,
+                                            Instances header, NominalContext context) {
+        Set<Rule> affectedRules = new HashSet<>();
+        if (!updatedConcepts.isEmpty() && ruleIndex != null && ruleIndex.size() > 0) {
+            String[] majorities = majoritiesOf(updatedConcepts, context);
+            Set<Rule> assigned = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < majorities.length; i++) {
+                FormalConcept c = updatedConcepts.get(i);
+                for (Rule rule : ruleIndex.candidatesWithin(c.getIntent(), header)) {
+                    if (!assigned.contains(rule) && rule.conditionsWithin(c)) {
+                        assigned.add(rule);
+                        applyConceptChange(rule, c, majorities[i]);
+                        affectedRules.add(rule);
+                    }
+                }
+            }
         }
-        if (modifiedRulesOut != null) {
-            modifiedRulesOut.addAll(affectedRules);
+        if (!affectedRules.isEmpty()) {
+            updateRuleMetrics(new ArrayList<>(affectedRules), context);
         }
-        return updatedCount;
+        return affectedRules;
     }
 
     /**
-     * Finds the majority class in a set of instance indices.
+     * Classe majoritaire de chaque concept modifié, lue dans son histogramme de classes.
+     */
+    private String[] majoritiesOf(List<FormalConcept> concepts, NominalContext context) {
+        String[] majorities = new String[concepts.size()];
+        for (int i = 0; i < majorities.length; i++) {
+            int majorityIndex = majorityClassOf(concepts.get(i), context);
+            majorities[i] = majorityIndex >= 0 ? context.getClassValue(majorityIndex) : null;
+        }
+        return majorities;
+    }
+
+    /**
+     * Répercute sur une règle couverte le changement d'extension d'un concept.
+     */
+    private static void applyConceptChange(Rule rule, FormalConcept concept, String majority) {
+        if (majority != null && !majority.equals(rule.getPredictedClass())) {
+            rule.setPredictedClass(majority);
+        }
+        // Mise à jour de l'occurrence (|X|) si le concept correspond exactement aux conditions de la règle
+        if (concept.getIntentSize() == rule.getConditionCount()) {
+            rule.setPremiseOccurrenceWithoutRecalculation(concept.getExtentSize());
+        }
+    }
+
+    /**
+     * Finds the majority class of a concept from its class histogram, maintained by the concept
+     * as instances are added (see FormalConcept.classHistogram).
      *
-     * @param instanceIndices Set of instance indices
+     * @param concept Formal concept
      * @param context Nominal context
-     * @return The majority class, or null if there is no clear majority
+     * @return The majority class index, or -1 if the concept covers no classified instance
      */
-    private String findMajorityClass(Set<Integer> instanceIndices, NominalContext context) {
-        Map<String, Integer> classCount = new HashMap<>();
-        String firstMaxClass = null;  // Pour stocker la première classe avec le maximum d'occurrences
-
-        // Count occurrences of each class
-        for (Integer instanceIdx : instanceIndices) {
-            String instanceClass = context.getInstanceClass(instanceIdx);
-            classCount.put(instanceClass, classCount.getOrDefault(instanceClass, 0) + 1);
-        }
+    private int majorityClassOf(FormalConcept concept, NominalContext context) {
+        return majorityOf(concept.classHistogram(context));
+    }
 
-        // Find the class with the maximum count
-        String majorityClass = null;
+    /**
+     * @param classCounts Occurrences of each class, by class index
+     * @return The majority class index, or -1 if the counts are empty
+     */
+    private static int majorityOf(int[] classCounts) {
+        int majorityClass = -1;
         int maxCount = 0;
-        boolean tie = false;
-
-        for (Map.Entry<String, Integer> entry : classCount.entrySet()) {
-            if (entry.getValue() > maxCount) {
-                maxCount = entry.getValue();
-                majorityClass = entry.getKey();
-                firstMaxClass = entry.getKey(); // Enregistrer la première classe avec le max
-                tie = false;
-            } else if (entry.getValue() == maxCount) {
-                tie = true;
+        // En cas d'égalité, la première classe (plus petit index) avec le maximum d'occurrences
+        for (int c = 0; c < classCounts.length; c++) {
+            if (classCounts[c] > maxCount) {
+                maxCount = classCounts[c];
+                majorityClass = c;
             }
         }
-
-        // En cas d'égalité, retourner la première classe avec le maximum d'occurrences
-        if (tie) {
-            return firstMaxClass;
-        }
         return majorityClass;
     }
 }
@@ -0,0 +1,472 @@
+package com.lamsili.canc.rules;
+
+import com.lamsili.canc.fca.context.NominalContext;
+import com.yahoo.labs.samoa.instances.Instance;
+import com.yahoo.labs.samoa.instances.Instances;
+
+import java.util.*;
+
+/**
+ * Index de discrimination des règles : trie dont chaque arête est un couple (indice d'attribut, code
+ * de valeur) du matcher compilé, les couples d'une prémisse étant rangés par indice d'attribut
+ * croissant. Chaque nœud porte les règles dont la prémisse évaluée est exactement le chemin qui y mène.
+ *
+ * Une instance ne descend que les arêtes qu'elle satisfait : pour chaque attribut de branchement d'un
+ * nœud, sa valeur désigne au plus un enfant. Les sous-arbres non satisfaits ne sont jamais visités,
+ * de sorte que le coût d'une recherche suit le nombre de prémisses partiellement satisfaites et non
+ * le nombre total de règles.
+ *
+ * L'index suit la liste de règles du modèle dans son ordre (numéro de séquence par entrée) : les
+ * règles applicables sont retournées dans l'ordre de la liste, ce qui garde les votes identiques à un
+ * parcours linéaire. Le trie est compilé contre l'en-tête des instances ; il est reconstruit si
+ * l'en-tête change ou après invalidate() (restriction des attributs actifs).
+ *
+ * L'index tient aussi à jour la couverture des règles sur le contexte suivi : à chaque instance
+ * ajoutée ou retirée par le fenêtrage, seules les règles applicables voient leur histogramme de
+ * classes modifié. Toute autre modification du contexte (compteur de modifications inattendu)
+ * invalide les histogrammes, qui sont alors recalculés à la demande.
+ */
+public class RuleIndex {
+
+    /**
+     * Occurrence d'une règle dans la liste, avec sa position relative.
+     */
+    private static final class Entry {
+        final Rule rule;
+        final long sequence;
+
+        Entry(Rule rule, long sequence) {
+            this.rule = rule;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Attribut de branchement d'un nœud : enfants indexés par code de valeur.
+     */
+    private static final class Branch {
+        final int attribute;
+        Node[] children = new Node[0];
+
+        Branch(int attribute) {
+            this.attribute = attribute;
+        }
+    }
+
+    private static final class Node {
+        final List<Entry> entries = new ArrayList<>(1);
+        final List<Branch> branches = new ArrayList<>(1);
+
+        Node child(int attribute, int code) {
+            Branch branch = null;
+            for (Branch candidate : branches) {
+                if (candidate.attribute == attribute) {
+                    branch = candidate;
+                    break;
+                }
+            }
+            if (branch == null) {
+                branch = new Branch(attribute);
+                branches.add(branch);
+            }
+            if (code >= branch.children.length) {
+                branch.children = Arrays.copyOf(branch.children, code + 1);
+            }
+            if (branch.children[code] == null) {
+                branch.children[code] = new Node();
+            }
+            return branch.children[code];
+        }
+
+        /**
+         * @return L'enfant existant pour ce couple, ou null
+         */
+        Node find(int attribute, int code) {
+            for (Branch branch : branches) {
+                if (branch.attribute == attribute) {
+                    return code < branch.children.length ? branch.children[code] : null;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Détache l'enfant de ce couple ; une branche sans enfant est retirée.
+         */
+        void prune(int attribute, int code) {
+            for (Iterator<Branch> it = branches.iterator(); it.hasNext(); ) {
+                Branch branch = it.next();
+                if (branch.attribute != attribute) continue;
+                branch.children[code] = null;
+                boolean empty = true;
+                for (Node child : branch.children) {
+                    if (child != null) {
+                        empty = false;
+                        break;
+                    }
+                }
+                if (empty) it.remove();
+                return;
+            }
+        }
+
+        boolean isEmpty() {
+            return entries.isEmpty() && branches.isEmpty();
+        }
+    }
+
+    // Entrées dans l'ordre de la liste de règles
+    private final List<Entry> entries = new ArrayList<>();
+    private long nextSequence;
+
+    // Trie compilé (null = à reconstruire), règles non compilables (évaluées par appliesTo) et règles
+    // compilées qui ne s'appliquent jamais (hors trie, mais candidates pour candidatesWithin)
+    private Instances header;
+    private Node root;
+    private final List<Entry> unindexed = new ArrayList<>();
+    private final List<Entry> inert = new ArrayList<>();
+    private final Map<String, Integer> attributeIndices = new HashMap<>();
+
+    // Couverture des règles : contexte suivi, état connu de ce contexte et époque des histogrammes
+    private NominalContext coverageContext;
+    private long coverageModCount;
+    private long coverageEpoch;
+
+    /**
+     * Remplace le contenu de l'index par une liste de règles.
+     */
+    public void rebuild(List<Rule> rules) {
+        entries.clear();
+        nextSequence = 0;
+        for (Rule rule : rules) {
+            entries.add(new Entry(rule, nextSequence++));
+        }
+        root = null;
+        // Des règles ont pu manquer des mises à jour de couverture
+        coverageEpoch++;
+    }
+
+    /**
+     * Ajoute des règles en fin de liste.
+     */
+    public void addAll(Collection<Rule> rules) {
+        for (Rule rule : rules) {
+            Entry entry = new Entry(rule, nextSequence++);
+            entries.add(entry);
+            if (root != null) {
+                insert(entry);
+            }
+        }
+    }
+
+    /**
+     * Retire toutes les occurrences des règles données (égalité par valeur, comme List.removeIf(contains)).
+     * Le trie compilé est modifié sur place : chaque règle est retirée du nœud de sa prémisse et les
+     * nœuds devenus vides sont élagués en remontant son chemin.
+     */
+    public void removeAll(Collection<Rule> removed) {
+        if (removed.isEmpty()) return;
+        Set<Rule> removedSet = removed instanceof Set ? (Set<Rule>) removed : new HashSet<>(removed);
+        if (!entries.removeIf(entry -> removedSet.contains(entry.rule)) || root == null) return;
+        unindexed.removeIf(entry -> removedSet.contains(entry.rule));
+        inert.removeIf(entry -> removedSet.contains(entry.rule));
+        for (Rule rule : removedSet) {
+            detach(rule, removedSet);
+        }
+    }
+
+    /**
+     * Force la recompilation du trie (prémisses évaluées modifiées).
+     */
+    public void invalidate() {
+        root = null;
+    }
+
+    /**
+     * @return Nombre de règles indexées
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Retourne les règles applicables à l'instance, dans l'ordre de la liste de règles.
+     *
+     * @param instance L'instance à classer
+     * @return Les règles dont la prémisse est satisfaite
+     */
+    public List<Rule> applicableRules(Instance instance) {
+        Instances instanceHeader = instance.dataset();
+        if (instanceHeader == null) {
+            List<Rule> applicable = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.rule.appliesTo(instance)) applicable.add(entry.rule);
+            }
+            return applicable;
+        }
+        if (root == null || header != instanceHeader) {
+            compile(instanceHeader);
+        }
+
+        List<Entry> matched = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            matched.addAll(node.entries);
+            for (Branch branch : node.branches) {
+                // (int) NaN == 0 : même lecture des valeurs manquantes que le matcher compilé
+                int code = (int) instance.value(branch.attribute);
+                if (code >= 0 && code < branch.children.length && branch.children[code] != null) {
+                    stack.push(branch.children[code]);
+                }
+            }
+        }
+        for (Entry entry : unindexed) {
+            if (entry.rule.appliesTo(instance)) matched.add(entry);
+        }
+
+        matched.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<Rule> applicable = new ArrayList<>(matched.size());
+        for (Entry entry : matched) {
+            applicable.add(entry.rule);
+        }
+        return applicable;
+    }
+
+    /**
+     * Retourne les règles strictement plus générales qu'une règle : celles dont la prémisse évaluée est
+     * un sous-ensemble strict de la sienne. Le parcours ne suit que les arêtes de sa prémisse.
+     *
+     * @param rule Règle de référence
+     * @param instanceHeader En-tête du flux
+     * @return Les règles plus générales, dans l'ordre de la liste de règles
+     */
+    public List<Rule> generalizationsOf(Rule rule, Instances instanceHeader) {
+        if (root == null || header != instanceHeader) {
+            compile(instanceHeader);
+        }
+        Rule.CompiledMatcher matcher = rule.compiledFor(header);
+        if (matcher == null || matcher.neverMatches) {
+            return Collections.emptyList();
+        }
+        int n = matcher.attributeIndices.length;
+        int[] codeFor = new int[header.numAttributes()];
+        Arrays.fill(codeFor, -1);
+        for (int c = 0; c < n; c++) {
+            codeFor[matcher.attributeIndices[c]] = matcher.valueCodes[c];
+        }
+
+        List<Entry> general = new ArrayList<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        stack.push(root);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int depth = depths.pop();
+            if (depth < n) {
+                general.addAll(node.entries);
+            }
+            for (Branch branch : node.branches) {
+                int code = codeFor[branch.attribute];
+                if (code >= 0 && code < branch.children.length && branch.children[code] != null) {
+                    stack.push(branch.children[code]);
+                    depths.push(depth + 1);
+                }
+            }
+        }
+        general.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<Rule> result = new ArrayList<>(general.size());
+        for (Entry entry : general) {
+            result.add(entry.rule);
+        }
+        return result;
+    }
+
+    /**
+     * Retourne les règles dont la prémisse évaluée est incluse dans une intention (égalité comprise), plus
+     * les règles hors trie (non compilables, ou restreintes à aucune condition active), dans l'ordre de
+     * la liste de règles. Le parcours ne suit que les arêtes dont le couple appartient à l'intention.
+     * La prémisse évaluée pouvant être une restriction des conditions, celles-ci restent à vérifier
+     * par l'appelant (voir Rule.conditionsWithin).
+     *
+     * @param intent Intention d'un concept
+     * @param instanceHeader En-tête du flux
+     * @return Les règles candidates
+     */
+    public List<Rule> candidatesWithin(Set<Map.Entry<String, String>> intent, Instances instanceHeader) {
+        if (root == null || header != instanceHeader) {
+            compile(instanceHeader);
+        }
+        int[] codeFor = new int[header.numAttributes()];
+        Arrays.fill(codeFor, -1);
+        for (Map.Entry<String, String> pair : intent) {
+            Integer attribute = attributeIndices.get(pair.getKey());
+            if (attribute == null || !header.attribute(attribute).isNominal()) continue;
+            codeFor[attribute] = header.attribute(attribute).indexOfValue(pair.getValue());
+        }
+
+        List<Entry> candidates = new ArrayList<>(unindexed);
+        candidates.addAll(inert);
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            candidates.addAll(node.entries);
+            for (Branch branch : node.branches) {
+                int code = codeFor[branch.attribute];
+                if (code >= 0 && code < branch.children.length && branch.children[code] != null) {
+                    stack.push(branch.children[code]);
+                }
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> entry.sequence));
+        List<Rule> result = new ArrayList<>(candidates.size());
+        for (Entry entry : candidates) {
+            result.add(entry.rule);
+        }
+        return result;
+    }
+
+    /**
+     * Suit la couverture des règles sur un contexte (les histogrammes existants sont invalidés).
+     */
+    public void trackCoverage(NominalContext context) {
+        coverageContext = context;
+        coverageModCount = context.getModCount();
+        coverageEpoch++;
+    }
+
+    /**
+     * Vérifie que le contexte est suivi et aligne l'état connu sur son compteur de modifications
+     * (à appeler avant une lecture concurrente des histogrammes).
+     *
+     * @return true si la couverture des règles est suivie sur ce contexte
+     */
+    public boolean tracksCoverageOf(NominalContext context) {
+        return tracks(context);
+    }
+
+    /**
+     * @return L'histogramme de classes couvert par la règle sur ce contexte, ou null s'il doit être recalculé
+     */
+    public int[] coverageOf(Rule rule, NominalContext context) {
+        if (!tracks(context)) return null;
+        return rule.coverageFor(this, coverageEpoch);
+    }
+
+    /**
+     * Enregistre l'histogramme recalculé d'une règle (ignoré si le contexte n'est pas suivi).
+     */
+    public void storeCoverage(Rule rule, NominalContext context, int[] counts) {
+        if (tracks(context)) {
+            rule.setCoverage(this, coverageEpoch, counts);
+        }
+    }
+
+    /**
+     * Répercute sur les histogrammes l'ajout d'une instance au contexte suivi et l'éventuel retrait
+     * de la plus ancienne : O(règles applicables).
+     *
+     * @param context Contexte modifié
+     * @param added Instance ajoutée
+     * @param addedRules Règles applicables à l'instance ajoutée, déjà recherchées dans cet index
+     *                   (typiquement lors de sa prédiction)
+     * @param evicted Instance retirée par le fenêtrage, ou null
+     */
+    public void contextChanged(NominalContext context, Instance added, List<Rule> addedRules, Instance evicted) {
+        if (context != coverageContext) return;
+        long expected = coverageModCount + (evicted != null ? 2 : 1);
+        if (context.getModCount() != expected) {
+            coverageEpoch++;
+        } else {
+            updateCoverage(added, addedRules, 1);
+            if (evicted != null) {
+                updateCoverage(evicted, applicableRules(evicted), -1);
+            }
+        }
+        coverageModCount = context.getModCount();
+    }
+
+    private void updateCoverage(Instance instance, List<Rule> applicable, int delta) {
+        int classIdx = (int) instance.classValue();
+        for (Rule rule : applicable) {
+            rule.updateCoverage(this, coverageEpoch, classIdx, delta);
+        }
+    }
+
+    /**
+     * Le contexte est suivi et n'a pas changé depuis la dernière mise à jour ; sinon les histogrammes
+     * sont invalidés et le suivi repart de l'état courant.
+     */
+    private boolean tracks(NominalContext context) {
+        if (context != coverageContext) return false;
+        if (context.getModCount() != coverageModCount) {
+            coverageModCount = context.getModCount();
+            coverageEpoch++;
+        }
+        return true;
+    }
+
+    private void compile(Instances instanceHeader) {
+        header = instanceHeader;
+        root = new Node();
+        unindexed.clear();
+        inert.clear();
+        attributeIndices.clear();
+        for (int a = 0; a < instanceHeader.numAttributes(); a++) {
+            attributeIndices.putIfAbsent(instanceHeader.attribute(a).name(), a);
+        }
+        for (Entry entry : entries) {
+            insert(entry);
+        }
+    }
+
+    private void insert(Entry entry) {
+        Rule.CompiledMatcher matcher = entry.rule.compiledFor(header);
+        if (matcher == null) {
+            unindexed.add(entry);
+            return;
+        }
+        if (matcher.neverMatches) {
+            inert.add(entry);
+            return;
+        }
+        Node node = root;
+        for (int c : branchOrder(matcher)) {
+            node = node.child(matcher.attributeIndices[c], matcher.valueCodes[c]);
+        }
+        node.entries.add(entry);
+    }
+
+    /**
+     * Retire du trie les entrées de la prémisse d'une règle retirée, puis élague les nœuds vides.
+     */
+    private void detach(Rule rule, Set<Rule> removed) {
+        Rule.CompiledMatcher matcher = rule.compiledFor(header);
+        if (matcher == null || matcher.neverMatches) return;
+        Integer[] order = branchOrder(matcher);
+        Node[] path = new Node[order.length + 1];
+        path[0] = root;
+        for (int d = 0; d < order.length; d++) {
+            path[d + 1] = path[d].find(matcher.attributeIndices[order[d]], matcher.valueCodes[order[d]]);
+            if (path[d + 1] == null) return;
+        }
+        path[order.length].entries.removeIf(entry -> removed.contains(entry.rule));
+        for (int d = order.length; d > 0 && path[d].isEmpty(); d--) {
+            path[d - 1].prune(matcher.attributeIndices[order[d - 1]], matcher.valueCodes[order[d - 1]]);
+        }
+    }
+
+    /**
+     * @return Les positions des couples du matcher, par indice d'attribut croissant (ordre des arêtes)
+     */
+    private static Integer[] branchOrder(Rule.CompiledMatcher matcher) {
+        int n = matcher.attributeIndices.length;
+        Integer[] order = new Integer[n];
+        for (int c = 0; c < n; c++) order[c] = c;
+        Arrays.sort(order, Comparator.comparingInt(c -> matcher.attributeIndices[c]));
+        return order;
+    }
+}
@@ -0,0 +1,77 @@
+package com.lamsili.canc.rules;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Magasin des règles du modèle indexé par prémisse : une règle extraite dont la prémisse est déjà
+ * connue n'est pas ajoutée une seconde fois, elle est fusionnée dans la règle canonique (voir
+ * RuleExtractor.mergeRule). Le nombre de règles suit ainsi le nombre de motifs distincts et non le
+ * nombre de reconstructions.
+ *
+ * Une règle canonique peut être portée par plusieurs concepts : le magasin compte ses références et
+ * ne la libère qu'avec le dernier concept qui la porte.
+ */
+public class RuleStore implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Map<String, String>, Rule> byPremise = new HashMap<>();
+    private final IdentityHashMap<Rule, Integer> references = new IdentityHashMap<>();
+
+    /**
+     * Retourne la règle canonique de même prémisse et lui ajoute une référence. Si la prémisse est
+     * nouvelle, la règle est enregistrée et retournée telle quelle.
+     *
+     * @param rule Règle extraite
+     * @return La règle canonique (la règle elle-même si sa prémisse n'était pas connue)
+     */
+    public Rule intern(Rule rule) {
+        Map<String, String> premise = rule.getConditions();
+        Rule existing = byPremise.get(premise);
+        if (existing == null) {
+            byPremise.put(premise, rule);
+            existing = rule;
+        }
+        references.merge(existing, 1, Integer::sum);
+        return existing;
+    }
+
+    /**
+     * Retire une référence à une règle.
+     *
+     * @return true si la règle n'est plus référencée (elle est alors retirée du magasin)
+     */
+    public boolean release(Rule rule) {
+        Integer count = references.get(rule);
+        if (count == null) return true;
+        if (count > 1) {
+            references.put(rule, count - 1);
+            return false;
+        }
+        references.remove(rule);
+        byPremise.remove(rule.getConditions());
+        return true;
+    }
+
+    /**
+     * Retire une règle quelles que soient ses références (compaction).
+     */
+    public void remove(Rule rule) {
+        if (references.remove(rule) != null && byPremise.get(rule.getConditions()) == rule) {
+            byPremise.remove(rule.getConditions());
+        }
+    }
+
+    /**
+     * @return Nombre de règles canoniques
+     */
+    public int size() {
+        return references.size();
+    }
+
+    public void clear() {
+        byPremise.clear();
+        references.clear();
+    }
+}
@@ -0,0 +1,222 @@
+package com.lamsili.canc.rules;
+
+import com.lamsili.canc.fca.concept.FormalConcept;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Suivi de l'utilisation des concepts : nombre de votes de leurs règles, dernier vote et
+ * contribution aux votes corrects. Sert à choisir les concepts à évincer lorsque le modèle
+ * dépasse son budget (voir EvictionPolicy).
+ *
+ * Le suivi est tenu par concept seulement : l'éviction porte sur les concepts, et une règle ne quitte
+ * le modèle qu'avec ses concepts (ou par compaction), si bien que des statistiques par règle n'auraient
+ * aucun consommateur. Une règle partagée par plusieurs concepts (magasin -R) crédite chacun d'eux.
+ *
+ * Le temps est mesuré en nombre d'instances vues par le classifieur.
+ */
+public class UsageTracker implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 2L;
+
+    /**
+     * Statistiques d'utilisation d'un concept.
+     */
+    public static final class UsageStats implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final long createdAt;
+        private long hits;
+        private long lastHit = -1;
+        private double correctContribution;
+
+        UsageStats(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        void recordHit(long tick, double correct) {
+            hits++;
+            lastHit = tick;
+            correctContribution += correct;
+        }
+
+        /** @return Nombre de votes auxquels l'élément a participé */
+        public long getHits() { return hits; }
+
+        /** @return Instance du dernier vote (-1 si aucun) */
+        public long getLastHit() { return lastHit; }
+
+        /** @return Dernier vote, ou création si l'élément n'a jamais voté */
+        public long getLastActive() { return lastHit >= 0 ? lastHit : createdAt; }
+
+        /** @return Somme des poids votés pour la classe réelle */
+        public double getCorrectContribution() { return correctContribution; }
+
+        /** @return Instance de création */
+        public long getCreatedAt() { return createdAt; }
+    }
+
+    private final IdentityHashMap<FormalConcept, UsageStats> conceptUsage = new IdentityHashMap<>();
+    // Concepts porteurs de chaque règle (plusieurs si la règle est partagée)
+    private final IdentityHashMap<Rule, List<FormalConcept>> conceptsByRule = new IdentityHashMap<>();
+
+    /**
+     * Enregistre un concept et ses règles.
+     *
+     * @param concept Concept ajouté au modèle
+     * @param rules Règles extraites du concept
+     * @param tick Nombre d'instances vues
+     */
+    public void register(FormalConcept concept, List<Rule> rules, long tick) {
+        conceptUsage.computeIfAbsent(concept, c -> new UsageStats(tick));
+        for (Rule rule : rules) {
+            List<FormalConcept> owners = conceptsByRule.computeIfAbsent(rule, r -> new ArrayList<>(1));
+            if (!containsIdentity(owners, concept)) owners.add(concept);
+        }
+    }
+
+    /**
+     * Comptabilise un vote : chaque concept porteur d'une règle votante reçoit un vote, et sa contribution
+     * correcte est le poids de ses règles votantes qui prédisent la classe réelle.
+     *
+     * @param votingRules Règles ayant voté pour l'instance
+     * @param actualClass Classe réelle de l'instance
+     * @param tick Nombre d'instances vues
+     */
+    public void recordVotes(List<Rule> votingRules, String actualClass, long tick) {
+        IdentityHashMap<FormalConcept, Double> concepts = new IdentityHashMap<>();
+        for (Rule rule : votingRules) {
+            double correct = actualClass.equals(rule.getPredictedClass()) ? rule.getWeight() : 0.0;
+            for (FormalConcept concept : conceptsByRule.getOrDefault(rule, Collections.emptyList())) {
+                concepts.merge(concept, correct, Double::sum);
+            }
+        }
+        for (Map.Entry<FormalConcept, Double> entry : concepts.entrySet()) {
+            UsageStats stats = conceptUsage.get(entry.getKey());
+            if (stats != null) stats.recordHit(tick, entry.getValue());
+        }
+    }
+
+    /**
+     * Oublie des règles retirées du modèle sans leur concept (compaction).
+     */
+    public void forgetRules(Collection<Rule> rules) {
+        for (Rule rule : rules) {
+            conceptsByRule.remove(rule);
+        }
+    }
+
+    /**
+     * Oublie un concept (après éviction ou fusion) ; ses règles restent suivies pour leurs autres concepts.
+     *
+     * @param concept Concept retiré
+     * @param rules Toutes les règles du concept, y compris celles qu'il partageait
+     */
+    public void forget(FormalConcept concept, Collection<Rule> rules) {
+        conceptUsage.remove(concept);
+        for (Rule rule : rules) {
+            List<FormalConcept> owners = conceptsByRule.get(rule);
+            if (owners == null) continue;
+            owners.removeIf(owner -> owner == concept);
+            if (owners.isEmpty()) conceptsByRule.remove(rule);
+        }
+    }
+
+    private static boolean containsIdentity(List<FormalConcept> concepts, FormalConcept concept) {
+        for (FormalConcept candidate : concepts) {
+            if (candidate == concept) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return Statistiques du concept, ou null s'il n'est pas suivi
+     */
+    public UsageStats getConceptUsage(FormalConcept concept) {
+        return conceptUsage.get(concept);
+    }
+
+    /**
+     * Choisit les concepts à évincer : les concepts expirés si la politique a une durée de vie,
+     * puis les concepts de plus faible score de rétention jusqu'à revenir sous le budget. Seuls les
+     * concepts en excès sont retenus dans un tas borné : O(C log excès) au lieu d'un tri complet.
+     *
+     * @param concepts Concepts du modèle
+     * @param rulesByConcept Règles de chaque concept (pour le poids)
+     * @param policy Politique d'éviction
+     * @param maxConcepts Nombre maximal de concepts (0 = illimité)
+     * @param ttl Durée de vie en instances sans vote (politiques qui expirent)
+     * @param now Nombre d'instances vues
+     * @return Les concepts à évincer (ensemble d'identité)
+     */
+    public Set<FormalConcept> selectVictims(Collection<FormalConcept> concepts,
+                                            Map<FormalConcept, List<Rule>> rulesByConcept,
+                                            EvictionPolicy policy, int maxConcepts, long ttl, long now) {
+        Set<FormalConcept> victims = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (policy.expires()) {
+            for (FormalConcept concept : concepts) {
+                if (now - usageOf(concept).getLastActive() > ttl) {
+                    victims.add(concept);
+                }
+            }
+        }
+
+        int excess = maxConcepts > 0 ? concepts.size() - victims.size() - maxConcepts : 0;
+        if (excess > 0) {
+            // Tas max des excess plus faibles candidats : sa tête est le plus fort d'entre eux
+            PriorityQueue<Candidate> weakest = new PriorityQueue<>(excess, Collections.reverseOrder());
+            int position = 0;
+            for (FormalConcept concept : concepts) {
+                if (victims.contains(concept)) continue;
+                double weight = 0.0;
+                for (Rule rule : rulesByConcept.getOrDefault(concept, Collections.emptyList())) {
+                    weight += rule.getWeight();
+                }
+                UsageStats usage = usageOf(concept);
+                Candidate candidate = new Candidate(concept, policy.retentionScore(usage, weight, now),
+                        usage.getLastActive(), position++);
+                if (weakest.size() < excess) {
+                    weakest.add(candidate);
+                } else if (candidate.compareTo(weakest.peek()) < 0) {
+                    weakest.poll();
+                    weakest.add(candidate);
+                }
+            }
+            for (Candidate candidate : weakest) {
+                victims.add(candidate.concept);
+            }
+        }
+        return victims;
+    }
+
+    /**
+     * Candidat à l'éviction. Ordre : score, puis dernier vote, puis position dans le modèle
+     * (à égalité, les concepts les plus anciens dans le modèle partent d'abord).
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+        final FormalConcept concept;
+        final double score;
+        final long lastActive;
+        final int position;
+
+        Candidate(FormalConcept concept, double score, long lastActive, int position) {
+            this.concept = concept;
+            this.score = score;
+            this.lastActive = lastActive;
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            int cmp = Double.compare(score, other.score);
+            if (cmp == 0) cmp = Long.compare(lastActive, other.lastActive);
+            return cmp != 0 ? cmp : Integer.compare(position, other.position);
+        }
+    }
+
+    private UsageStats usageOf(FormalConcept concept) {
+        UsageStats stats = conceptUsage.get(concept);
+        return stats != null ? stats : new UsageStats(0);
+    }
+}
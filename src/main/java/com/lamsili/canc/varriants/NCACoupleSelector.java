@@ -2,6 +2,7 @@ package com.lamsili.canc.varriants;
 
 import com.lamsili.canc.fca.context.NominalContext;
 import com.lamsili.canc.fca.closure.ClosureOperator;
+import com.lamsili.canc.rules.ModelContext;
 import com.yahoo.labs.samoa.instances.Instance;
 
 import java.util.*;
@@ -16,14 +17,43 @@ public class NCACoupleSelector implements Serializable {
     private static final long serialVersionUID = 1L;
 
     private final NominalContext context;
+    // Configuration du modèle (méthode d'évaluation des attributs)
+    private final ModelContext model;
 
     /**
-     * Constructeur avec contexte nominal
+     * Constructeur avec contexte nominal et configuration par défaut
      *
      * @param context Le contexte nominal utilisé pour la sélection
      */
     public NCACoupleSelector(NominalContext context) {
+        this(context, new ModelContext());
+    }
+
+    /**
+     * Constructeur avec contexte nominal
+     *
+     * @param context Le contexte nominal utilisé pour la sélection
+     * @param model Configuration du modèle propriétaire
+     */
+    public NCACoupleSelector(NominalContext context, ModelContext model) {
         this.context = context;
+        this.model = model;
+    }
+
+    /**
+     * @return Un opérateur de fermeture sur le contexte, qui n'affiche ses calculs que si le modèle est en débogage
+     */
+    private ClosureOperator newClosureOperator() {
+        ClosureOperator closure = new ClosureOperator(context);
+        closure.setDebugEnabled(model.isDebugEnabled());
+        return closure;
+    }
+
+    /**
+     * @return Le contexte nominal sur lequel opère la sélection
+     */
+    public NominalContext getContext() {
+        return context;
     }
 
     /**
@@ -52,17 +82,17 @@ public class NCACoupleSelector implements Serializable {
      * Retourne les scores d'information de tous les attributs nominaux.
      * Utilisé pour le débogage et la visualisation des scores.
      *
-     * @return Map associant chaque attribut à son score d'information
+     * @return Map associant chaque attribut à son score d'information (dans l'ordre du jeu de données)
      */
     public Map<String, Double> getAttributeScores() {
-        Map<String, Double> attributeScores = new HashMap<>();
+        Map<String, Double> attributeScores = new LinkedHashMap<>();
 
         if (context.getNumInstances() == 0) {
             return attributeScores;
         }
 
         // Utiliser ClosureOperator pour calculer le vrai gain d'information (ou gain ratio si configuré)
-        ClosureOperator closure = new ClosureOperator(context);
+        ClosureOperator closure = newClosureOperator();
 
         // Récupérer tous les attributs nominaux
         Instance firstInstance = context.getInstance(0);
@@ -74,10 +104,14 @@ public class NCACoupleSelector implements Serializable {
             }
 
             String attributeName = firstInstance.attribute(i).name();
+            // Les attributs élagués (constants ou quasi constants) ne sont pas évalués
+            if (!context.isAttributeActive(attributeName)) {
+                continue;
+            }
 
             // Utiliser la méthode d'évaluation configurée (IG ou GR)
             ClosureOperator.AttributeEvalMethod evalMethod =
-                com.lamsili.canc.app.CANCDebugger.getAttributeEvalMethod();
+                model.getAttributeEvalMethod();
 
             double score;
             if (evalMethod == ClosureOperator.AttributeEvalMethod.GAIN_RATIO) {
@@ -99,8 +133,8 @@ public class NCACoupleSelector implements Serializable {
      * @return Nom de l'attribut le plus pertinent
      */
     public String getMostPertinentAttribute() {
-        ClosureOperator closure = new ClosureOperator(context);
-        return closure.getMostInformativeAttribute(com.lamsili.canc.app.CANCDebugger.getAttributeEvalMethod());
+        ClosureOperator closure = newClosureOperator();
+        return closure.getMostInformativeAttribute(model.getAttributeEvalMethod());
     }
 
 
@@ -116,10 +150,10 @@ public class NCACoupleSelector implements Serializable {
      */
     private Set<Map.Entry<String, String>> cpncComvPairs(Instance instance) {
         // Créer l'opérateur de fermeture
-        ClosureOperator closure = new ClosureOperator(context);
+        ClosureOperator closure = newClosureOperator();
 
         // 1. Trouver l'attribut avec le gain d'information maximal (a*)
-        String mostInformativeAttribute = closure.getMostInformativeAttribute(com.lamsili.canc.app.CANCDebugger.getAttributeEvalMethod());
+        String mostInformativeAttribute = closure.getMostInformativeAttribute(model.getAttributeEvalMethod());
 
         // Ensemble de résultat qui contiendra les intents des concepts (couples attribut-valeur)
         Set<Map.Entry<String, String>> resultPairs = new HashSet<>();
@@ -167,10 +201,10 @@ public class NCACoupleSelector implements Serializable {
      */
     private Set<Map.Entry<String, String>> cpncCorvPair(Instance instance) {
         // Créer l'opérateur de fermeture
-        ClosureOperator closure = new ClosureOperator(context);
+        ClosureOperator closure = newClosureOperator();
 
         // 1. Trouver l'attribut avec le gain d'information maximal (a*)
-        String mostInformativeAttribute = closure.getMostInformativeAttribute(com.lamsili.canc.app.CANCDebugger.getAttributeEvalMethod());
+        String mostInformativeAttribute = closure.getMostInformativeAttribute(model.getAttributeEvalMethod());
 
         // 2. Trouver la valeur la plus pertinente (v*) pour cet attribut
         String mostRelevantValue = closure.getMostRelevantValue(mostInformativeAttribute);
@@ -198,7 +232,7 @@ public class NCACoupleSelector implements Serializable {
      */
     private Set<Map.Entry<String, String>> cancComvPairs(Instance instance) {
         // Créer l'opérateur de fermeture
-        ClosureOperator closure = new ClosureOperator(context);
+        ClosureOperator closure = newClosureOperator();
 
         // Ensemble de résultat qui contiendra les intents des concepts (couples attribut-valeur)
         Set<Map.Entry<String, String>> resultPairs = new HashSet<>();
@@ -208,7 +242,8 @@ public class NCACoupleSelector implements Serializable {
 
         // Récupère tous les attributs nominaux
         for (int i = 0; i < instance.numAttributes(); i++) {
-            if (i == instance.classIndex() || !instance.attribute(i).isNominal()) {
+            if (i == instance.classIndex() || !instance.attribute(i).isNominal()
+                    || !context.isAttributeActive(instance.attribute(i).name())) {
                 continue;
             }
             nominalAttributes.add(instance.attribute(i).name());
@@ -259,7 +294,7 @@ public class NCACoupleSelector implements Serializable {
      */
     private Set<Map.Entry<String, String>> cancCorvPairs(Instance instance) {
         // Créer l'opérateur de fermeture
-        ClosureOperator closure = new ClosureOperator(context);
+        ClosureOperator closure = newClosureOperator();
 
         // Ensemble de résultat qui contiendra les intents des concepts (couples attribut-valeur)
         Set<Map.Entry<String, String>> resultPairs = new HashSet<>();
@@ -269,7 +304,8 @@ public class NCACoupleSelector implements Serializable {
 
         // Récupère tous les attributs nominaux
         for (int i = 0; i < instance.numAttributes(); i++) {
-            if (i == instance.classIndex() || !instance.attribute(i).isNominal()) {
+            if (i == instance.classIndex() || !instance.attribute(i).isNominal()
+                    || !context.isAttributeActive(instance.attribute(i).name())) {
                 continue;
             }
             nominalAttributes.add(instance.attribute(i).name());
@@ -0,0 +1,139 @@
+package com.lamsili.canc.varriants;
+
+import com.lamsili.canc.fca.closure.ClosureOperator.AttributeEvalMethod;
+import com.lamsili.canc.fca.context.NominalContext;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Mémorise, pour chaque contexte, le dernier classement des attributs et l'écart de score entre les
+ * deux premiers. Tant que cet écart dépasse une tolérance (voir tolerance) augmentée de la dérive
+ * possible due aux instances ajoutées depuis, l'attribut pertinent est réutilisé sans recalcul des scores.
+ *
+ * Un classement est rattaché à l'identité du contexte sur lequel il a été calculé et à sa taille, et
+ * n'est donc pas perdu quand le classifieur passe temporairement sur un autre contexte (échantillon
+ * construit après un rejet). Il est oublié dès que l'ensemble des attributs exclus (élagage,
+ * sélection) change ou que le contexte rétrécit. Les contextes sont référencés faiblement.
+ */
+public class PertinentAttributeCache implements Serializable {
+    // Ajouter un serialVersionUID pour la stabilité de la sérialisation
+    private static final long serialVersionUID = 2L;
+
+    // Paramètre δ de la tolérance
+    private final double delta;
+
+    // Classements par contexte (identité), non sérialisés : ils sont recalculés au besoin
+    private transient Map<NominalContext, Ranking> rankings;
+
+    /**
+     * Classement établi sur un contexte.
+     */
+    private static final class Ranking {
+        final String leader;
+        final double gap;
+        final double range;
+        final int rankedOn;               // nombre d'instances du contexte lors du classement (n)
+        final Set<String> rankedWithout;  // attributs exclus lors du classement
+
+        Ranking(String leader, double gap, double range, int rankedOn, Set<String> rankedWithout) {
+            this.leader = leader;
+            this.gap = gap;
+            this.range = range;
+            this.rankedOn = rankedOn;
+            this.rankedWithout = rankedWithout;
+        }
+    }
+
+    /**
+     * @param delta Paramètre δ de la tolérance (plus il est petit, plus la tolérance est large)
+     */
+    public PertinentAttributeCache(double delta) {
+        this.delta = delta;
+    }
+
+    private Map<NominalContext, Ranking> rankings() {
+        if (rankings == null) {
+            rankings = new WeakHashMap<>();
+        }
+        return rankings;
+    }
+
+    /**
+     * Enregistre un nouveau classement pour un contexte.
+     *
+     * @param context Contexte sur lequel les scores ont été calculés
+     * @param scores Scores des attributs dans l'ordre du jeu de données
+     * @param numClasses Nombre de classes du flux
+     * @param evalMethod Méthode d'évaluation ayant produit les scores
+     * @return L'attribut meneur (même règle d'égalité que getMostInformativeAttribute)
+     */
+    public String update(NominalContext context, Map<String, Double> scores, int numClasses,
+                         AttributeEvalMethod evalMethod) {
+        String best = null;
+        double bestScore = -1.0;
+        double secondScore = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            double score = entry.getValue();
+            if (score > bestScore) {
+                if (best != null) {
+                    secondScore = bestScore;
+                }
+                bestScore = score;
+                best = entry.getKey();
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        // Étendue du score : log2(C) pour le gain d'information, 1 pour le gain ratio
+        double range = evalMethod == AttributeEvalMethod.GAIN_RATIO ? 1.0
+                : Math.log(Math.max(2, numClasses)) / Math.log(2);
+        rankings().put(context, new Ranking(best, best == null ? 0.0 : bestScore - secondScore, range,
+                context.getNumInstances(), context.getInactiveAttributes()));
+        return best;
+    }
+
+    /**
+     * Retourne le meneur mémorisé pour ce contexte s'il est encore retenu, null s'il faut reclasser.
+     * Le meneur est conservé tant que gap > ε(n) + 2·R·m/(n+m), où ε(n) est la tolérance du
+     * classement et m le nombre d'instances ajoutées au contexte depuis, chacune pouvant déplacer
+     * au plus R·m/(n+m) le score de chaque attribut.
+     *
+     * @param context Contexte de classement courant
+     * @return Le meneur ou null
+     */
+    public String getStableLeader(NominalContext context) {
+        Ranking ranking = rankings().get(context);
+        if (ranking == null || ranking.leader == null || ranking.rankedOn <= 0) {
+            return null;
+        }
+        int size = context.getNumInstances();
+        // Un attribut élagué, réintégré ou désélectionné, ou un contexte qui a rétréci, rend le classement caduc
+        if (size < ranking.rankedOn || !context.getInactiveAttributes().equals(ranking.rankedWithout)) {
+            rankings.remove(context);
+            return null;
+        }
+        long newInstances = size - ranking.rankedOn;
+        double drift = 2.0 * ranking.range * newInstances / (double) (ranking.rankedOn + newInstances);
+        return ranking.gap > tolerance(ranking.range, ranking.rankedOn) + drift ? ranking.leader : null;
+    }
+
+    /**
+     * Tolérance ε = sqrt(R²·ln(1/δ)/(2n)), de la forme de la borne de Hoeffding.
+     *
+     * Il s'agit d'une tolérance heuristique et non d'une garantie : l'inégalité de Hoeffding porte sur
+     * la moyenne de variables bornées indépendantes, or le gain d'information et le gain ratio sont des
+     * fonctions non linéaires (et biaisées) des fréquences observées. δ ne doit donc pas être lu comme
+     * une probabilité d'erreur sur l'identité du meneur ; il règle seulement la largeur de la tolérance.
+     *
+     * @param range Étendue R du score
+     * @param n Nombre d'observations
+     * @return La tolérance ε
+     */
+    public double tolerance(double range, int n) {
+        return Math.sqrt(range * range * Math.log(1.0 / delta) / (2.0 * n));
+    }
+}
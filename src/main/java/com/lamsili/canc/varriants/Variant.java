@@ -23,5 +23,10 @@ public enum Variant {
     /**
      * Variante CaNC_CORV : tous les attributs, fermeture valeurs pertinentes
      */
-    CaNC_CORV
+    CaNC_CORV,
+
+    /**
+     * Variante CfNC_FCbO : treillis complet énuméré par FCbO parallèle (borné en concepts et en temps)
+     */
+    CfNC_FCbO
 }